@@ -0,0 +1,75 @@
+package org.example.handy.v3;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.handy.v3.dto.HandyHspAddResponse;
+import org.example.handy.v3.dto.HspAddRequest;
+import org.example.handy.v3.dto.HspPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// hspAdd request serialization and response parsing as done by HandyClientV3, with plain ObjectMapper as baseline
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HspAddJsonBenchmark
+{
+    private static final byte[] RESPONSE = "{\"result\":{\"stream_id\":1,\"play_state\":1,\"points\":120,\"max_points\":4000,\"current_point\":80,\"current_time\":51234,\"loop\":false,\"playback_rate\":1,\"first_point_time\":50100,\"last_point_time\":51600,\"tail_point_stream_index\":1200,\"tail_point_threshold\":0,\"pause_on_starving\":false}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"10", "100"})
+    private int points;
+
+    private ObjectMapper objectMapper;
+    private HspAddJsonCodec codec;
+    private HspAddRequest request;
+    private byte[] buffer;
+
+    @Setup
+    public void setUp()
+    {
+        objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        codec = new HspAddJsonCodec(objectMapper);
+        List<HspPoint> hspPoints = new ArrayList<>(points);
+        for (int i = 0; i < points; i++)
+        {
+            hspPoints.add(new HspPoint(50_000 + i * 16, (i * 7) % 101));
+        }
+        request = new HspAddRequest(hspPoints, false);
+        buffer = new byte[HspAddJsonCodec.maxRequestLength(points)];
+    }
+
+    @Benchmark
+    public int writeRequest()
+    {
+        return HspAddJsonCodec.writeRequest(request, buffer);
+    }
+
+    @Benchmark
+    public byte[] writeRequestObjectMapper() throws JsonProcessingException
+    {
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public HandyHspAddResponse readResponse() throws IOException
+    {
+        return codec.readResponse(RESPONSE);
+    }
+
+    @Benchmark
+    public HandyHspAddResponse readResponseObjectMapper() throws IOException
+    {
+        return objectMapper.readValue(RESPONSE, HandyHspAddResponse.class);
+    }
+}
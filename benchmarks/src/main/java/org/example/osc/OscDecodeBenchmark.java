@@ -0,0 +1,80 @@
+package org.example.osc;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Decoding of a single received OSC packet (the part that runs on OSC receiver thread for every VRChat parameter update)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OscDecodeBenchmark
+{
+    private static final String AVATAR_PARAMETER = "/avatar/parameters/SPSLL_Socket_Ring";
+
+    public enum PacketType {MATCHING_MESSAGE, OTHER_MESSAGE, BUNDLE}
+
+    @Param
+    private PacketType packetType;
+
+    private NioOscReceiver receiver;
+    private ByteBuffer packet;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws IOException
+    {
+        receiver = new NioOscReceiver(0); // Bound to ephemeral port, packets are fed directly
+        receiver.addListener("/avatar/parameters/SPSLL_Socket_*", (value, sampleNanos) -> blackhole.consume(value));
+        packet = switch (packetType)
+        {
+            case MATCHING_MESSAGE -> floatMessage(AVATAR_PARAMETER, 0.42f);
+            case OTHER_MESSAGE -> floatMessage("/avatar/parameters/VelocityMagnitude", 0.42f);
+            case BUNDLE -> bundle(floatMessage("/avatar/parameters/VelocityMagnitude", 0.1f), floatMessage(AVATAR_PARAMETER, 0.42f));
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        receiver.stopListening();
+    }
+
+    @Benchmark
+    public void dispatchPacket()
+    {
+        receiver.dispatchPacket(packet, 0, packet.limit(), System.nanoTime());
+    }
+
+    private static ByteBuffer floatMessage(String address, float value)
+    {
+        byte[] addressBytes = address.getBytes(StandardCharsets.US_ASCII);
+        int addressLength = (addressBytes.length + 4) & ~3; // Null terminated and padded to 4 bytes
+        ByteBuffer message = ByteBuffer.allocateDirect(addressLength + 4 + Float.BYTES);
+        message.put(addressBytes).position(addressLength);
+        message.put(new byte[]{',', 'f', 0, 0}).putFloat(value);
+        return message.flip();
+    }
+
+    private static ByteBuffer bundle(ByteBuffer... messages)
+    {
+        int size = 8 + Long.BYTES;
+        for (ByteBuffer message : messages)
+        {
+            size += Integer.BYTES + message.limit();
+        }
+        ByteBuffer bundle = ByteBuffer.allocateDirect(size);
+        bundle.put("#bundle".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).putLong(1); // Timetag 1 = immediately
+        for (ByteBuffer message : messages)
+        {
+            bundle.putInt(message.limit()).put(message.duplicate());
+        }
+        return bundle.flip();
+    }
+}
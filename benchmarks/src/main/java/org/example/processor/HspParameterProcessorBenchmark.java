@@ -0,0 +1,103 @@
+package org.example.processor;
+
+import org.example.ConfigLoader;
+import org.example.ConfigProperties;
+import org.example.handy.v3.HandyClientV3;
+import org.example.simulator.HandySimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Per-sample cost of HSP processing: accepting a value (default signal chain) and draining pending points into a batch. Signal chain stages alone: SignalChainBenchmark.
+// Handy API is replaced with local simulator (no latency), sender thread is not started so batches are drained by the benchmark.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HspParameterProcessorBenchmark
+{
+    private static final int SAMPLES_PER_BATCH = 64; // ~ OSC updates between two hspAdd requests
+    private static final int VALUES = 256;
+
+    @Param
+    private SpsType spsType;
+
+    private HandySimulator simulator;
+    private HspParameterProcessor processor;
+    private final float[] values = new float[VALUES];
+    private int nextValue;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        ConfigLoader.setLoggingLevel(ch.qos.logback.classic.Level.WARN);
+        simulator = new HandySimulator(new HandySimulator.Settings(0, 0, 0, 0, 4000, 0));
+        simulator.start();
+        var config = ConfigProperties.builder()
+                .deviceConnectionKey("benchmark")
+                .handyApplicationId("benchmark")
+                .handyApiUri("http://localhost:%d%s".formatted(simulator.port(), HandySimulator.BASE_PATH))
+                .processingAlgorithm(ParameterProcessorType.HSP)
+                .maxRequestsInFlight(1)
+                .pointsOffset(300)
+                .sendMessageEveryMs(150)
+                .minimalValueChange(2)
+                .simplifyTolerance(1)
+                .penetratorLength(0.8f)
+                .spsType(spsType)
+                .build();
+        processor = new HspParameterProcessor(new HandyClientV3(config.handyApiUri(), config.deviceConnectionKey(), config.handyApplicationId(), false), config);
+        for (int i = 0; i < VALUES; i++)
+        {
+            values[i] = (float) (0.5 + 0.5 * Math.sin(i * 2 * Math.PI / 16)); // Steps well above deadband
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        processor.shutdown();
+        simulator.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES_PER_BATCH)
+    public HspPointBatch actOnValueChange()
+    {
+        for (int i = 0; i < SAMPLES_PER_BATCH; i++)
+        {
+            processor.actOnValueChange(nextValue());
+        }
+        return processor.getAndClearHspPoints(); // Keeps pending points buffer from filling up, cost is measured separately below
+    }
+
+    @State(Scope.Thread)
+    public static class PendingPoints
+    {
+        // Filling per invocation is fine here, draining a batch takes microseconds so timestamping overhead is negligible
+        @Setup(Level.Invocation)
+        public void fill(HspParameterProcessorBenchmark benchmark)
+        {
+            for (int i = 0; i < SAMPLES_PER_BATCH; i++)
+            {
+                benchmark.processor.actOnValueChange(benchmark.nextValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public HspPointBatch getAndClearHspPoints(PendingPoints pendingPoints)
+    {
+        return processor.getAndClearHspPoints();
+    }
+
+    private float nextValue()
+    {
+        float value = values[nextValue];
+        nextValue = (nextValue + 1) & (VALUES - 1);
+        return value;
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.processor.signal;
+
+import org.example.ConfigProperties;
+import org.example.processor.SpsType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Per-sample cost of signal chain built from config. Values are noisy strokes, so deadbands both accept and reject samples.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignalChainBenchmark
+{
+    private static final int VALUES = 1024;
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Param({"PENETRATION,DEADBAND", "PENETRATION,EMA,DEADBAND", "PENETRATION,ONE_EURO,ADAPTIVE_DEADBAND,CURVE,CLAMP"})
+    private String stages;
+
+    private SignalStage signalChain;
+    private final float[] values = new float[VALUES];
+    private int nextValue;
+    private long sampleNanos;
+
+    @Setup
+    public void setUp()
+    {
+        var config = ConfigProperties.builder()
+                .spsType(SpsType.ORIFICE)
+                .penetratorLength(0.8f)
+                .signalChain(Arrays.stream(stages.split(",")).map(SignalStageType::valueOf).toList())
+                .smoothingMs(30)
+                .oneEuroMinCutoff(1)
+                .oneEuroBeta(0.5f)
+                .minimalValueChange(2)
+                .deadbandNoiseFactor(3)
+                .penetrationMultiplier(1.5f)
+                .penetrationCurve(0.8f)
+                .clampMin(0)
+                .clampMax(1)
+                .build();
+        signalChain = SignalChain.from(config).build();
+        var random = new Random(42);
+        for (int i = 0; i < VALUES; i++)
+        {
+            values[i] = (float) (0.5 + 0.45 * Math.sin(i * 2 * Math.PI / 64) + 0.02 * random.nextGaussian());
+        }
+    }
+
+    @Benchmark
+    public float process()
+    {
+        float value = values[nextValue];
+        nextValue = (nextValue + 1) & (VALUES - 1);
+        sampleNanos += SAMPLE_INTERVAL_NANOS;
+        return signalChain.process(value, sampleNanos);
+    }
+}
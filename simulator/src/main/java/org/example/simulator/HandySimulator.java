@@ -0,0 +1,287 @@
+package org.example.simulator;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.handy.v3.HandyClientV3;
+import org.example.handy.v3.dto.HspAddRequest;
+import org.example.handy.v3.dto.HspState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Local stand-in for Handy API v3 (handyApiUri=http://localhost:<port>/api/handy-rest/v3/) for offline throughput and skip rate runs.
+// Usage: java -jar simulator/target/simulator.jar port=8080 latencyMs=40 jitterMs=20 goAwayAfterRequests=100
+@Slf4j
+public class HandySimulator
+{
+    public static final String BASE_PATH = "/api/handy-rest/v3/";
+    private static final String STATS_PATH = "/simulator/stats";
+    private static final String SKIPS_PATH = "/simulator/skips";
+
+    private final Settings settings;
+    private final SimulatedHspDevice device;
+    private final ObjectMapper objectMapper;
+    private final Map<SocketAddress, Integer> requestsPerConnection = new ConcurrentHashMap<>();
+    private HttpServer server;
+
+    // latencyMs and jitterMs are applied in each direction, so round trip is 2 * (latency + random jitter)
+    public record Settings(int port, int latencyMs, int jitterMs, int goAwayAfterRequests, int bufferCapacity, int statsEveryMs)
+    {
+        public static Settings fromArgs(String[] args)
+        {
+            var properties = new Properties();
+            for (String arg : args)
+            {
+                String[] keyValue = arg.split("=", 2);
+                if (keyValue.length == 2)
+                {
+                    properties.setProperty(keyValue[0].trim(), keyValue[1].trim());
+                }
+            }
+            return new Settings(
+                    Integer.parseInt(properties.getProperty("port", "8080")),
+                    Integer.parseInt(properties.getProperty("latencyMs", "40")),
+                    Integer.parseInt(properties.getProperty("jitterMs", "20")),
+                    Integer.parseInt(properties.getProperty("goAwayAfterRequests", "0")),
+                    Integer.parseInt(properties.getProperty("bufferCapacity", "4000")),
+                    Integer.parseInt(properties.getProperty("statsEveryMs", "10000")));
+        }
+    }
+
+    public HandySimulator(Settings settings)
+    {
+        this.settings = settings;
+        this.device = new SimulatedHspDevice(settings.bufferCapacity());
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        var simulator = new HandySimulator(Settings.fromArgs(args));
+        simulator.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::stop, "shutdown"));
+    }
+
+    public void start() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", settings.port()), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor()); // Injected latency is a sleep, so every request gets its own thread
+        server.createContext(BASE_PATH + "mode", withFaults(this::handleMode));
+        server.createContext(BASE_PATH + "hsp/setup", withFaults(this::handleHspSetup));
+        server.createContext(BASE_PATH + "hsp/play", withFaults(this::handleHspPlay));
+        server.createContext(BASE_PATH + "hsp/add", withFaults(this::handleHspAdd));
+        server.createContext(BASE_PATH + "connected", withFaults(this::handleConnected));
+        server.createContext(BASE_PATH + "slider/stroke", withFaults(this::handleSliderStroke));
+        server.createContext(BASE_PATH, withFaults(exchange -> "{}")); // Connection warm up
+        server.createContext(STATS_PATH, exchange -> respond(exchange, 200, device.statsJson(), "application/json"));
+        server.createContext(SKIPS_PATH, exchange -> respond(exchange, 200, device.skipsCsv(), "text/csv"));
+        server.start();
+        if (settings.statsEveryMs() > 0)
+        {
+            Thread.ofVirtual().name("simulator-stats").start(this::logStatsPeriodically);
+        }
+        log.info("Handy simulator listening on http://localhost:{}{} ({})", port(), BASE_PATH, settings);
+    }
+
+    public void stop()
+    {
+        if (server != null)
+        {
+            server.stop(0);
+            device.logStats();
+        }
+    }
+
+    public int port()
+    {
+        return server.getAddress().getPort();
+    }
+
+    public SimulatedHspDevice device()
+    {
+        return device;
+    }
+
+    @FunctionalInterface
+    private interface JsonHandler
+    {
+        String handle(HttpExchange exchange) throws IOException;
+    }
+
+    private HttpHandler withFaults(JsonHandler handler)
+    {
+        return exchange ->
+        {
+            try (exchange)
+            {
+                if (exchange.getRequestHeaders().getFirst(HandyClientV3.DEVICE_CONNECTION_KEY_HEADER) == null
+                        && !"HEAD".equals(exchange.getRequestMethod()))
+                {
+                    respond(exchange, 401, "{\"error\":{\"code\":1001,\"name\":\"MissingConnectionKey\",\"message\":\"Missing connection key\",\"connected\":false}}", "application/json");
+                    return;
+                }
+                if (injectGoAway(exchange))
+                {
+                    return;
+                }
+                sleepOneWayLatency(); // Request travelling to the device
+                String body = handler.handle(exchange);
+                sleepOneWayLatency(); // Response travelling back
+                respond(exchange, 200, body, "application/json");
+            }
+            catch (Exception e)
+            {
+                log.error("[SIM] Failed handling {}", exchange.getRequestURI(), e);
+            }
+        };
+    }
+
+    // JDK HttpServer speaks HTTP/1.1 only and can't send a real GOAWAY, so connection limit is simulated with an error response
+    // that can't be mistaken for a Handy one. Request is not processed and connection is closed, but client sees an error response
+    // instead of GOAWAY, so its client rotation is not exercised by the simulator.
+    private boolean injectGoAway(HttpExchange exchange) throws IOException
+    {
+        if (settings.goAwayAfterRequests() <= 0)
+        {
+            return false;
+        }
+        int served = requestsPerConnection.merge(exchange.getRemoteAddress(), 1, Integer::sum);
+        if (served <= settings.goAwayAfterRequests())
+        {
+            return false;
+        }
+        requestsPerConnection.remove(exchange.getRemoteAddress());
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().set("Connection", "close");
+        respond(exchange, 503, "{\"error\":{\"code\":0,\"name\":\"SimulatedGoAway\",\"message\":\"Simulator closed connection after %d requests, request was not processed\",\"connected\":true}}"
+                .formatted(served - 1), "application/json");
+        log.debug("[SIM] Closing connection {} after {} requests", exchange.getRemoteAddress(), served - 1);
+        return true;
+    }
+
+    private void sleepOneWayLatency()
+    {
+        long delayMs = settings.latencyMs() + (settings.jitterMs() > 0 ? ThreadLocalRandom.current().nextInt(settings.jitterMs()) : 0);
+        if (delayMs <= 0)
+        {
+            return;
+        }
+        try
+        {
+            Thread.sleep(delayMs);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String handleMode(HttpExchange exchange) throws IOException
+    {
+        if ("PUT".equals(exchange.getRequestMethod()))
+        {
+            device.setMode(readJson(exchange).path("mode").asInt());
+        }
+        return "{\"result\":{\"mode\":%d}}".formatted(device.mode());
+    }
+
+    private String handleHspSetup(HttpExchange exchange)
+    {
+        device.setup();
+        return "{\"result\":{\"current_time\":%d}}".formatted(device.currentTime());
+    }
+
+    private String handleHspPlay(HttpExchange exchange) throws IOException
+    {
+        JsonNode request = readJson(exchange);
+        device.play(request.path("start_time").asInt(), (float) request.path("playback_rate").asDouble(1));
+        return stateJson(device.state());
+    }
+
+    private String handleHspAdd(HttpExchange exchange) throws IOException
+    {
+        HspAddRequest request;
+        try (InputStream body = exchange.getRequestBody())
+        {
+            request = objectMapper.readValue(body, HspAddRequest.class);
+        }
+        return stateJson(device.add(request));
+    }
+
+    private String handleConnected(HttpExchange exchange)
+    {
+        return "{\"result\":{\"connected\":true}}";
+    }
+
+    private String handleSliderStroke(HttpExchange exchange) throws IOException
+    {
+        if ("PUT".equals(exchange.getRequestMethod()))
+        {
+            JsonNode request = readJson(exchange);
+            device.setSlider(request.hasNonNull("min") ? request.get("min").asText() : null, request.hasNonNull("max") ? request.get("max").asText() : null);
+        }
+        return "{\"result\":{\"min\":\"%s\",\"max\":\"%s\"}}".formatted(device.sliderMin(), device.sliderMax());
+    }
+
+    private String stateJson(HspState state)
+    {
+        return "{\"result\":{\"current_time\":%d,\"first_point_time\":%s,\"last_point_time\":%s}}"
+                .formatted(state.current_time(), state.first_point_time(), state.last_point_time());
+    }
+
+    private JsonNode readJson(HttpExchange exchange) throws IOException
+    {
+        try (InputStream body = exchange.getRequestBody())
+        {
+            return objectMapper.readTree(body);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body, String contentType) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod()))
+        {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody())
+        {
+            responseBody.write(bytes);
+        }
+    }
+
+    private void logStatsPeriodically()
+    {
+        while (!Thread.currentThread().isInterrupted())
+        {
+            try
+            {
+                TimeUnit.MILLISECONDS.sleep(settings.statsEveryMs());
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+            device.logStats();
+        }
+    }
+}
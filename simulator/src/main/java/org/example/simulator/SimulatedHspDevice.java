@@ -0,0 +1,201 @@
+package org.example.simulator;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.handy.v3.dto.HspAddRequest;
+import org.example.handy.v3.dto.HspPoint;
+import org.example.handy.v3.dto.HspState;
+
+import java.util.ArrayDeque;
+
+// HSP buffer and stream clock of a simulated device. Points behind the playhead or not newer than the last buffered one
+// are skipped the same way the device would skip them, every skip is recorded.
+@Slf4j
+public class SimulatedHspDevice
+{
+    public enum SkipReason {LATE, OUT_OF_ORDER, BUFFER_FULL}
+
+    public record SkippedPoint(int t, int x, SkipReason reason, int streamTimeMs) {}
+
+    private static final int RECENT_SKIPS_LIMIT = 1000;
+
+    private final int bufferCapacity;
+    private final ArrayDeque<HspPoint> buffer = new ArrayDeque<>();
+    private final ArrayDeque<SkippedPoint> recentSkips = new ArrayDeque<>();
+    private boolean playing;
+    private long playStartedNanos;
+    private int startTimeMs;
+    private float playbackRate = 1;
+    private int mode;
+    private String sliderMin = "0";
+    private String sliderMax = "100";
+    private long addRequests;
+    private long receivedPoints;
+    private long bufferedPoints;
+    private long latePoints;
+    private long outOfOrderPoints;
+    private long overflowPoints;
+    private long starvations;
+    private long leewaySumMs;
+
+    public SimulatedHspDevice(int bufferCapacity)
+    {
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    public synchronized int currentTime()
+    {
+        if (!playing)
+        {
+            return startTimeMs;
+        }
+        return startTimeMs + (int) ((System.nanoTime() - playStartedNanos) / 1_000_000 * playbackRate);
+    }
+
+    public synchronized void setMode(int mode)
+    {
+        this.mode = mode;
+    }
+
+    public synchronized int mode()
+    {
+        return mode;
+    }
+
+    public synchronized void setup()
+    {
+        buffer.clear();
+        playing = false;
+        startTimeMs = 0;
+    }
+
+    public synchronized void play(int startTimeMs, float playbackRate)
+    {
+        this.startTimeMs = startTimeMs;
+        this.playbackRate = playbackRate;
+        this.playStartedNanos = System.nanoTime();
+        this.playing = true;
+    }
+
+    public synchronized HspState add(HspAddRequest request)
+    {
+        int now = currentTime();
+        addRequests++;
+        if (request.flush())
+        {
+            buffer.clear();
+        }
+        dropPlayedPoints(now);
+        if (playing && !request.points().isEmpty() && (buffer.isEmpty() || buffer.getLast().t() < now))
+        {
+            starvations++; // Device had nothing left to play when this request arrived
+        }
+        for (HspPoint point : request.points())
+        {
+            receivedPoints++;
+            if (!buffer.isEmpty() && point.t() <= buffer.getLast().t())
+            {
+                outOfOrderPoints++;
+                recordSkip(point, SkipReason.OUT_OF_ORDER, now);
+            }
+            else if (playing && point.t() < now)
+            {
+                latePoints++;
+                recordSkip(point, SkipReason.LATE, now);
+            }
+            else if (buffer.size() >= bufferCapacity)
+            {
+                overflowPoints++;
+                recordSkip(point, SkipReason.BUFFER_FULL, now);
+            }
+            else
+            {
+                bufferedPoints++;
+                leewaySumMs += point.t() - now;
+                buffer.addLast(point);
+            }
+        }
+        return state(now);
+    }
+
+    public synchronized HspState state()
+    {
+        int now = currentTime();
+        dropPlayedPoints(now);
+        return state(now);
+    }
+
+    public synchronized void setSlider(String min, String max)
+    {
+        sliderMin = min != null ? min : sliderMin;
+        sliderMax = max != null ? max : sliderMax;
+    }
+
+    public synchronized String sliderMin()
+    {
+        return sliderMin;
+    }
+
+    public synchronized String sliderMax()
+    {
+        return sliderMax;
+    }
+
+    public synchronized String statsJson()
+    {
+        return ("{\"add_requests\":%d,\"received_points\":%d,\"buffered_points\":%d,\"late_points\":%d,\"out_of_order_points\":%d,"
+                + "\"overflow_points\":%d,\"skip_rate\":%.4f,\"starvations\":%d,\"average_leeway_ms\":%d,\"current_time\":%d}")
+                .formatted(addRequests, receivedPoints, bufferedPoints, latePoints, outOfOrderPoints, overflowPoints, skipRate(),
+                        starvations, bufferedPoints == 0 ? 0 : leewaySumMs / bufferedPoints, currentTime());
+    }
+
+    public synchronized String skipsCsv()
+    {
+        var csv = new StringBuilder("t,x,reason,stream_time\n");
+        for (SkippedPoint skip : recentSkips)
+        {
+            csv.append(skip.t()).append(',').append(skip.x()).append(',').append(skip.reason()).append(',').append(skip.streamTimeMs()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    public synchronized void logStats()
+    {
+        log.info("[SIM] requests={}, points={}, skipped={} (late={}, outOfOrder={}, overflow={}), skipRate={}, starvations={}, avgLeeway={} ms",
+                addRequests, receivedPoints, latePoints + outOfOrderPoints + overflowPoints, latePoints, outOfOrderPoints, overflowPoints,
+                "%.2f%%".formatted(skipRate() * 100), starvations, bufferedPoints == 0 ? 0 : leewaySumMs / bufferedPoints);
+    }
+
+    private float skipRate()
+    {
+        return receivedPoints == 0 ? 0 : (float) (latePoints + outOfOrderPoints + overflowPoints) / receivedPoints;
+    }
+
+    private HspState state(int now)
+    {
+        return new HspState(now, buffer.isEmpty() ? null : buffer.getFirst().t(), buffer.isEmpty() ? null : buffer.getLast().t());
+    }
+
+    // Keeps the point being played (latest one behind playhead) as device is still moving towards the next one
+    private void dropPlayedPoints(int now)
+    {
+        while (buffer.size() > 1)
+        {
+            HspPoint played = buffer.removeFirst();
+            if (buffer.getFirst().t() > now)
+            {
+                buffer.addFirst(played);
+                return;
+            }
+        }
+    }
+
+    private void recordSkip(HspPoint point, SkipReason reason, int now)
+    {
+        if (recentSkips.size() >= RECENT_SKIPS_LIMIT)
+        {
+            recentSkips.removeFirst();
+        }
+        recentSkips.addLast(new SkippedPoint(point.t(), point.x(), reason, now));
+        log.debug("[SIM] Skipped point (t={}, x={}, reason={}, streamTime={})", point.t(), point.x(), reason, now);
+    }
+}
@@ -0,0 +1,122 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.osc.OscEngine;
+import org.example.osc.OscReplay;
+import org.example.osc.SourceSelection;
+import org.example.osc.SyntheticOscSource;
+import org.example.processor.ParameterProcessorType;
+import org.example.processor.SpsType;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+
+// Training run for the AppCDS archive (mvn package -Pappcds). Starts the app against local Handy simulator and streams OSC values to it,
+// so classes used by startup and streaming get loaded before JVM writes the archive at exit. Runs headless, so no window is shown.
+// Simulator is not part of the app jar, it runs in its own JVM from the jar given as the only argument.
+@Slf4j
+public class CdsTraining
+{
+    private static final String AVATAR_PARAMETER = "/avatar/parameters/OGB/Pen/Training/PenOthers";
+    private static final int STREAMING_SECONDS = 3;
+    private static final int OSC_RATE_HZ = 100;
+    private static final String SIMULATOR_BASE_PATH = "/api/handy-rest/v3/";
+    private static final long SIMULATOR_START_TIMEOUT_MS = 10_000;
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length != 1)
+        {
+            throw new IllegalArgumentException("Expected path to simulator jar as the only argument");
+        }
+        int simulatorPort;
+        try (var socket = new ServerSocket(0))
+        {
+            simulatorPort = socket.getLocalPort();
+        }
+        Process simulator = startSimulator(args[0], simulatorPort);
+        int oscPort;
+        try (var socket = new DatagramSocket(0))
+        {
+            oscPort = socket.getLocalPort();
+        }
+        var config = ConfigProperties.builder()
+                .deviceConnectionKey("training")
+                .handyApplicationId("training")
+                .handyApiUri("http://localhost:%d%s".formatted(simulatorPort, SIMULATOR_BASE_PATH))
+                .processingAlgorithm(ParameterProcessorType.HSP)
+                .avatarParameter(AVATAR_PARAMETER)
+                .sourceSelection(SourceSelection.MOST_ACTIVE)
+                .listenOnPort(oscPort)
+                .oscEngine(OscEngine.JAVAOSC) // Default engine
+                .maxRequestsInFlight(1)
+                .pointsOffset(300)
+                .pointsOffsetMin(50)
+                .pointsOffsetMax(1000)
+                .sendMessageEveryMs(100)
+                .minimalValueChange(2)
+                .simplifyTolerance(1)
+                .spsType(SpsType.PENETRATOR)
+                .build();
+        try
+        {
+            awaitSimulator(simulatorPort);
+            var startup = new StartupTimer();
+            Main.startApp(config, startup, Main.startGui(startup));
+            streamOscValues(oscPort);
+        }
+        catch (Exception e)
+        {
+            log.error("Training run failed!", e);
+            simulator.destroy();
+            System.exit(1); // Fails the build instead of leaving app threads running
+        }
+        log.info("Training run finished, writing class data archive...");
+        simulator.destroy();
+        System.exit(0);
+    }
+
+    private static Process startSimulator(String simulatorJar, int port) throws IOException
+    {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        return new ProcessBuilder(java, "-jar", simulatorJar, "port=" + port, "latencyMs=20", "jitterMs=10", "statsEveryMs=0")
+                .inheritIO()
+                .start();
+    }
+
+    private static void awaitSimulator(int port) throws IOException, InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SIMULATOR_START_TIMEOUT_MS);
+        while (true)
+        {
+            try (var socket = new Socket(InetAddress.getLoopbackAddress(), port))
+            {
+                return;
+            }
+            catch (IOException e)
+            {
+                if (System.nanoTime() > deadline)
+                {
+                    throw new IOException("Handy simulator did not start within %d ms".formatted(SIMULATOR_START_TIMEOUT_MS), e);
+                }
+                TimeUnit.MILLISECONDS.sleep(100);
+            }
+        }
+    }
+
+    private static void streamOscValues(int port) throws IOException
+    {
+        var source = new SyntheticOscSource(new SyntheticOscSource.Settings(SyntheticOscSource.Shape.SINE, AVATAR_PARAMETER, OSC_RATE_HZ, 1, 0, 0, STREAMING_SECONDS));
+        try (var channel = DatagramChannel.open())
+        {
+            channel.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            OscReplay.replay(source, 1, channel::write);
+        }
+    }
+}
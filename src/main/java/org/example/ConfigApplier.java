@@ -0,0 +1,86 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.processor.ParameterProcessor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Applies reloaded config to running app. OSC listener is recreated when its port, engine, avatar parameter or source selection changes.
+@Slf4j
+public class ConfigApplier
+{
+    private static final List<RestartOnlySetting> RESTART_ONLY_SETTINGS = List.of(
+            new RestartOnlySetting("deviceConnectionKey", ConfigProperties::deviceConnectionKey),
+            new RestartOnlySetting("handyApplicationId", ConfigProperties::handyApplicationId),
+            new RestartOnlySetting("handyApiUri", ConfigProperties::handyApiUri),
+            new RestartOnlySetting("hedgeHspAdd", ConfigProperties::hedgeHspAdd),
+            new RestartOnlySetting("processingAlgorithm", ConfigProperties::processingAlgorithm),
+            new RestartOnlySetting("predictionHorizonMs", ConfigProperties::predictionHorizonMs),
+            new RestartOnlySetting("predictionDivergence", ConfigProperties::predictionDivergence),
+            new RestartOnlySetting("metricsPort", ConfigProperties::metricsPort),
+            new RestartOnlySetting("eventJournalSizeMb", ConfigProperties::eventJournalSizeMb),
+            new RestartOnlySetting("flightRecordingMinutes", ConfigProperties::flightRecordingMinutes),
+            new RestartOnlySetting("oscCaptureSizeMb", ConfigProperties::oscCaptureSizeMb)
+    );
+
+    private final ParameterProcessor processor;
+    private OscListener oscListener;
+    private ConfigProperties config;
+
+    private record RestartOnlySetting(String name, Function<ConfigProperties, Object> getter)
+    {
+    }
+
+    public ConfigApplier(ConfigProperties config, ParameterProcessor processor, OscListener oscListener)
+    {
+        this.config = config;
+        this.processor = processor;
+        this.oscListener = oscListener;
+        registerProcessor(oscListener, config);
+    }
+
+    public synchronized void apply(ConfigProperties updated)
+    {
+        ConfigProperties previous = config;
+        config = updated;
+        processor.refreshConfig(updated);
+        if (previous.listenOnPort() != updated.listenOnPort()
+                || previous.oscEngine() != updated.oscEngine()
+                || !previous.avatarParameter().equals(updated.avatarParameter())
+                || previous.sourceSelection() != updated.sourceSelection())
+        {
+            restartOscListener(updated);
+        }
+        for (RestartOnlySetting setting : RESTART_ONLY_SETTINGS)
+        {
+            if (!Objects.equals(setting.getter().apply(previous), setting.getter().apply(updated)))
+            {
+                log.warn("Changed '{}' will be applied after restart", setting.name());
+            }
+        }
+        log.info("Configuration reloaded");
+    }
+
+    private void restartOscListener(ConfigProperties updated)
+    {
+        try
+        {
+            oscListener.close();
+            oscListener = new OscListener(updated.listenOnPort(), updated.oscEngine());
+            registerProcessor(oscListener, updated);
+        }
+        catch (IOException e)
+        {
+            log.error("Could not start OSC Listener on port {}! Fix config to retry", updated.listenOnPort(), e);
+        }
+    }
+
+    private void registerProcessor(OscListener listener, ConfigProperties config)
+    {
+        listener.registerFloatListener(config.avatarParameter(), config.sourceSelection(), processor::actOnValueChange);
+        log.info("Listening for '{}' avatar parameter (source selection: {})", config.avatarParameter(), config.sourceSelection());
+    }
+}
@@ -5,28 +5,33 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.EnumUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.example.handy.v3.HandyClientV3;
+import org.example.jfr.ConfigReloadEvent;
+import org.example.osc.OscEngine;
+import org.example.osc.SourceSelection;
 import org.example.processor.ParameterProcessorType;
 import org.example.processor.SpsType;
+import org.example.processor.signal.SignalChain;
+import org.example.processor.signal.SignalStageType;
 
 import javax.swing.*;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
-import java.nio.file.Path;
-import java.nio.file.attribute.FileTime;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 @Slf4j
 public class ConfigLoader
 {
-    private static final int RELOAD_EVERY_MS = 10_000;
+    private static final long DEBOUNCE_MS = 300;
     private final Path appConfigPath;
-    private FileTime lastModifiedTime;
 
     @SneakyThrows
     public ConfigLoader(Path appConfigPath)
@@ -53,7 +58,17 @@ public class ConfigLoader
                 System.exit(1);
             }
         }
-        return readConfigPropertiesAndSetLoggingLevel();
+        try
+        {
+            return readConfigPropertiesAndSetLoggingLevel();
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.error("Invalid config file: {} Closing app...", e.getMessage());
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+            return null;
+        }
     }
 
     public static void setLoggingLevel(Level level)
@@ -62,6 +77,7 @@ public class ConfigLoader
         root.setLevel(level);
     }
 
+    // Throws IllegalArgumentException when config is invalid, so running app can keep previous config
     private ConfigProperties readConfigPropertiesAndSetLoggingLevel() throws IOException
     {
         Properties properties = new Properties();
@@ -76,33 +92,99 @@ public class ConfigLoader
         var processingAlgorithm = EnumUtils.getEnum(ParameterProcessorType.class, processingAlgorithmProperty);
         if (processingAlgorithm == null)
         {
-            log.error("No '{}' algorithm available! Check your config file, closing app...", processingAlgorithmProperty);
-            System.exit(1);
+            throw new IllegalArgumentException("No '%s' algorithm available!".formatted(processingAlgorithmProperty));
         }
-        var spsType = EnumUtils.getEnum(SpsType.class, getPropertyOrCloseAppWhenBlank(properties, "spsType").toUpperCase());
+        String spsTypeProperty = getRequiredProperty(properties, "spsType");
+        var spsType = EnumUtils.getEnum(SpsType.class, spsTypeProperty.toUpperCase());
         if (spsType == null)
         {
-            log.error("No '{}' spsType available! Check your config file, closing app...", spsType);
-            System.exit(1);
+            throw new IllegalArgumentException("No '%s' spsType available!".formatted(spsTypeProperty));
+        }
+        String oscEngineProperty = getPropertyOrDefault(properties, "oscEngine", "JAVAOSC");
+        var oscEngine = EnumUtils.getEnum(OscEngine.class, oscEngineProperty.toUpperCase());
+        if (oscEngine == null)
+        {
+            throw new IllegalArgumentException("No '%s' oscEngine available!".formatted(oscEngineProperty));
+        }
+        Integer oscCaptureSizeMb = getProperty(properties, "oscCaptureSizeMb").map(Integer::parseInt).orElse(null);
+        if (oscCaptureSizeMb != null && oscEngine != OscEngine.NIO)
+        {
+            throw new IllegalArgumentException("oscCaptureSizeMb requires oscEngine=NIO (current: %s)!".formatted(oscEngine));
+        }
+        String sourceSelectionProperty = getPropertyOrDefault(properties, "sourceSelection", "MOST_ACTIVE");
+        var sourceSelection = EnumUtils.getEnum(SourceSelection.class, sourceSelectionProperty.toUpperCase());
+        if (sourceSelection == null)
+        {
+            throw new IllegalArgumentException("No '%s' sourceSelection available!".formatted(sourceSelectionProperty));
+        }
+        List<SignalStageType> signalChain = getProperty(properties, "signalChain").map(this::parseSignalChain).orElse(SignalChain.DEFAULT_STAGES);
+        float clampMin = Float.parseFloat(getPropertyOrDefault(properties, "clampMin", "0"));
+        float clampMax = Float.parseFloat(getPropertyOrDefault(properties, "clampMax", "1"));
+        if (clampMin > clampMax)
+        {
+            throw new IllegalArgumentException("clampMin (%s) must not be greater than clampMax (%s)!".formatted(clampMin, clampMax));
         }
         // TODO Log loaded config (without keys)
         return ConfigProperties.builder()
                 .listenOnPort(Integer.parseInt(getPropertyOrDefault(properties, "listenOnPort", "9001")))
-                .handyApplicationId(getPropertyOrCloseAppWhenBlank(properties, "handyApplicationId"))
+                .oscEngine(oscEngine)
+                .metricsPort(getProperty(properties, "metricsPort").map(Integer::parseInt).orElse(null))
+                .eventJournalSizeMb(getProperty(properties, "eventJournalSizeMb").map(Integer::parseInt).orElse(null))
+                .flightRecordingMinutes(getProperty(properties, "flightRecordingMinutes").map(Integer::parseInt).orElse(null))
+                .oscCaptureSizeMb(oscCaptureSizeMb)
+                .handyApplicationId(getRequiredProperty(properties, "handyApplicationId"))
                 .processingAlgorithm(processingAlgorithm)
+                .handyApiUri(getPropertyOrDefault(properties, "handyApiUri", HandyClientV3.DEFAULT_BASE_URI))
                 .avatarParameter(getProperty(properties, "avatarParameter").orElseGet(() -> pickDefaultAvatarParameter(spsType)))
-                .deviceConnectionKey(getPropertyOrCloseAppWhenBlank(properties, "deviceConnectionKey"))
-                .waitForApiResponse(Boolean.parseBoolean(getPropertyOrDefault(properties, "waitForApiResponse", "false")))
-                .pointsOffset(Integer.parseInt(getPropertyOrCloseAppWhenBlank(properties, "pointsOffset")))
-                .sendMessageEveryMs(Integer.parseInt(getPropertyOrCloseAppWhenBlank(properties, "sendMessageEveryMs")))
+                .sourceSelection(sourceSelection)
+                .deviceConnectionKey(getRequiredProperty(properties, "deviceConnectionKey"))
+                .maxRequestsInFlight(Integer.parseInt(getPropertyOrDefault(properties, "maxRequestsInFlight", "1")))
+                .hedgeHspAdd(Boolean.parseBoolean(getPropertyOrDefault(properties, "hedgeHspAdd", "false")))
+                .pointsOffset(Integer.parseInt(getRequiredProperty(properties, "pointsOffset")))
+                .adaptivePointsOffset(Boolean.parseBoolean(getPropertyOrDefault(properties, "adaptivePointsOffset", "false")))
+                .pointsOffsetMin(Integer.parseInt(getPropertyOrDefault(properties, "pointsOffsetMin", "50")))
+                .pointsOffsetMax(Integer.parseInt(getPropertyOrDefault(properties, "pointsOffsetMax", "1000")))
+                .targetSkipRate(Float.parseFloat(getPropertyOrDefault(properties, "targetSkipRate", "0.01")))
+                .predictionHorizonMs(Integer.parseInt(getPropertyOrDefault(properties, "predictionHorizonMs", "150")))
+                .predictionDivergence(Integer.parseInt(getPropertyOrDefault(properties, "predictionDivergence", "10")))
+                .sendMessageEveryMs(Integer.parseInt(getRequiredProperty(properties, "sendMessageEveryMs")))
+                .flushOnTurningPoints(Boolean.parseBoolean(getPropertyOrDefault(properties, "flushOnTurningPoints", "false")))
+                .turningPointJump(Integer.parseInt(getPropertyOrDefault(properties, "turningPointJump", "20")))
+                .minFlushSpacingMs(Integer.parseInt(getPropertyOrDefault(properties, "minFlushSpacingMs", "40")))
                 .minimalValueChange(Integer.parseInt(getPropertyOrDefault(properties, "minimalValueChange", "2")))
-                .penetratorLength(spsType == SpsType.ORIFICE ? Float.parseFloat(getPropertyOrCloseAppWhenBlank(properties, "penetratorLength")) : 0.f)
+                .simplifyTolerance(Float.parseFloat(getPropertyOrDefault(properties, "simplifyTolerance", "1")))
+                .penetratorLength(spsType == SpsType.ORIFICE ? Float.parseFloat(getRequiredProperty(properties, "penetratorLength")) : 0.f)
+                .signalChain(signalChain)
+                .smoothingMs(Integer.parseInt(getPropertyOrDefault(properties, "smoothingMs", "30")))
+                .oneEuroMinCutoff(Float.parseFloat(getPropertyOrDefault(properties, "oneEuroMinCutoff", "1")))
+                .oneEuroBeta(Float.parseFloat(getPropertyOrDefault(properties, "oneEuroBeta", "0.5")))
+                .deadbandNoiseFactor(Float.parseFloat(getPropertyOrDefault(properties, "deadbandNoiseFactor", "3")))
+                .penetrationMultiplier(Float.parseFloat(getPropertyOrDefault(properties, "penetrationMultiplier", "1")))
+                .penetrationCurve(Float.parseFloat(getPropertyOrDefault(properties, "penetrationCurve", "1")))
+                .clampMin(clampMin)
+                .clampMax(clampMax)
                 .sliderMin(getProperty(properties, "sliderMin").map(Float::parseFloat).orElse(null))
                 .sliderMax(getProperty(properties, "sliderMax").map(Float::parseFloat).orElse(null))
                 .spsType(spsType)
                 .build();
     }
 
+    private List<SignalStageType> parseSignalChain(String signalChainProperty)
+    {
+        return Arrays.stream(signalChainProperty.split(","))
+                .map(String::trim)
+                .map(stage ->
+                {
+                    var type = EnumUtils.getEnum(SignalStageType.class, stage.toUpperCase());
+                    if (type == null)
+                    {
+                        throw new IllegalArgumentException("No '%s' signalChain stage available!".formatted(stage));
+                    }
+                    return type;
+                })
+                .toList();
+    }
+
     private String pickDefaultAvatarParameter(SpsType spsType)
     {
         if (spsType == null)
@@ -131,67 +213,107 @@ public class ConfigLoader
         return value;
     }
 
-    private String getPropertyOrCloseAppWhenBlank(Properties properties, String propertyName)
+    private String getRequiredProperty(Properties properties, String propertyName)
     {
         String value = properties.getProperty(propertyName);
         if (StringUtils.isBlank(value))
         {
-            log.error("Missing '{}' property in config file! Closing app...", propertyName);
-            JOptionPane.showMessageDialog(null, "Missing '%s' property in config file!".formatted(propertyName), "Error", JOptionPane.ERROR_MESSAGE);
-            System.exit(1);
+            throw new IllegalArgumentException("Missing '%s' property in config file!".formatted(propertyName));
         }
         return value;
     }
 
-    @SneakyThrows
-    public void runReloading(Consumer<ConfigProperties> propertiesConsumer)
+    // Changes are applied once file stays unchanged for DEBOUNCE_MS, as editors often write a file in several steps
+    public void watchForChanges(ConfigProperties currentConfig, Consumer<ConfigProperties> propertiesConsumer) throws IOException
     {
-        lastModifiedTime = Files.getLastModifiedTime(appConfigPath, LinkOption.NOFOLLOW_LINKS);
-        new Thread(() -> tryReloadingConfig(propertiesConsumer)).start();
+        WatchService watchService = appConfigPath.getFileSystem().newWatchService();
+        appConfigPath.toAbsolutePath().getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        var thread = new Thread(() -> watchInLoop(watchService, currentConfig, propertiesConsumer), "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for changes", appConfigPath);
     }
 
-    private void tryReloadingConfig(Consumer<ConfigProperties> propertiesConsumer)
+    private void watchInLoop(WatchService watchService, ConfigProperties currentConfig, Consumer<ConfigProperties> propertiesConsumer)
     {
-        try
+        ConfigProperties appliedConfig = currentConfig;
+        try (watchService)
         {
             while (true)
             {
-                tryReloadingConfig().ifPresent(propertiesConsumer);
-                delayUntilNextReload();
+                if (!pollConfigChange(watchService.take()))
+                {
+                    continue;
+                }
+                WatchKey key;
+                while ((key = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null)
+                {
+                    pollConfigChange(key);
+                }
+                Optional<ConfigProperties> reloaded = tryReloadingConfig();
+                if (reloaded.isPresent() && !reloaded.get().equals(appliedConfig))
+                {
+                    try
+                    {
+                        propertiesConsumer.accept(reloaded.get());
+                        appliedConfig = reloaded.get();
+                    }
+                    catch (Exception e) // Keeps watching, so fixing the file applies it again
+                    {
+                        log.error("Could not apply reloaded config, it will be applied again after next change", e);
+                    }
+                }
             }
         }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            log.info("Stopped watching config file");
+        }
         catch (Exception e)
         {
-            log.error("Caught exception during config reload!", e);
+            log.error("Caught exception during config reload! Config changes will not be applied until restart", e);
         }
     }
 
-    @SneakyThrows
-    private Optional<ConfigProperties> tryReloadingConfig()
+    // Directory is watched, so events for other files are ignored
+    private boolean pollConfigChange(WatchKey key)
     {
-        if (Files.notExists(appConfigPath))
+        boolean configChanged = false;
+        for (WatchEvent<?> event : key.pollEvents())
         {
-            return Optional.empty();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || appConfigPath.getFileName().equals(event.context()))
+            {
+                configChanged = true;
+            }
         }
-        FileTime modifiedTime = Files.getLastModifiedTime(appConfigPath, LinkOption.NOFOLLOW_LINKS);
-        if (modifiedTime.equals(lastModifiedTime))
+        key.reset();
+        return configChanged;
+    }
+
+    private Optional<ConfigProperties> tryReloadingConfig()
+    {
+        if (Files.notExists(appConfigPath))
         {
             return Optional.empty();
         }
         log.info("Reloading configuration...");
-        lastModifiedTime = modifiedTime;
-        return Optional.of(readConfigPropertiesAndSetLoggingLevel());
-    }
-
-    private void delayUntilNextReload()
-    {
+        var event = new ConfigReloadEvent();
+        event.begin();
+        event.path = appConfigPath.toString();
         try
         {
-            Thread.sleep(RELOAD_EVERY_MS);
+            ConfigProperties config = readConfigPropertiesAndSetLoggingLevel();
+            event.applied = true;
+            return Optional.of(config);
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            log.error("Could not reload config, keeping previous one: {}", e.getMessage());
+            return Optional.empty();
         }
-        catch (InterruptedException e)
+        finally
         {
-            log.error("Error while sleeping: {}", e.getMessage());
+            event.commit();
         }
     }
 }
@@ -1,22 +1,54 @@
 package org.example;
 
 import lombok.Builder;
+import org.example.osc.OscEngine;
+import org.example.osc.SourceSelection;
 import org.example.processor.ParameterProcessorType;
 import org.example.processor.SpsType;
+import org.example.processor.signal.SignalStageType;
+
+import java.util.List;
 
 @Builder
 public record ConfigProperties(
         String deviceConnectionKey,
         String avatarParameter,
+        SourceSelection sourceSelection,
         String handyApplicationId,
         ParameterProcessorType processingAlgorithm,
         int handyApiVersion,
+        String handyApiUri,
         int listenOnPort,
-        boolean waitForApiResponse,
+        OscEngine oscEngine,
+        Integer metricsPort,
+        Integer eventJournalSizeMb,
+        Integer flightRecordingMinutes,
+        Integer oscCaptureSizeMb,
+        int maxRequestsInFlight,
+        boolean hedgeHspAdd,
         int pointsOffset,
+        boolean adaptivePointsOffset,
+        int pointsOffsetMin,
+        int pointsOffsetMax,
+        float targetSkipRate,
+        int predictionHorizonMs,
+        int predictionDivergence,
         int sendMessageEveryMs,
+        boolean flushOnTurningPoints,
+        int turningPointJump,
+        int minFlushSpacingMs,
         int minimalValueChange,
+        float simplifyTolerance,
         float penetratorLength,
+        List<SignalStageType> signalChain,
+        int smoothingMs,
+        float oneEuroMinCutoff,
+        float oneEuroBeta,
+        float deadbandNoiseFactor,
+        float penetrationMultiplier,
+        float penetrationCurve,
+        float clampMin,
+        float clampMax,
         Float sliderMin,
         Float sliderMax,
         SpsType spsType
@@ -3,65 +3,107 @@ package org.example;
 import lombok.extern.slf4j.Slf4j;
 import org.example.handy.common.HandyClient;
 import org.example.handy.v3.HandyClientV3;
+import org.example.jfr.ContinuousRecording;
+import org.example.journal.EventJournal;
+import org.example.metrics.MetricsServer;
+import org.example.osc.OscCapture;
 import org.example.processor.HspParameterProcessor;
 import org.example.processor.ParameterProcessor;
+import org.example.processor.ProcessorListener;
+import org.example.processor.StreamClock;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ComponentAdapter;
-import java.awt.event.ComponentEvent;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Slf4j
 public class Main
 {
-    public static void main(String[] args) throws IOException
+    private static final int EVENT_JOURNAL_RING_CAPACITY = 1 << 16;
+    private static final Executor STARTUP_EXECUTOR = Thread::startVirtualThread;
+
+    public static void main(String[] args) throws Exception
     {
-        JLabel penetrationValueLabel = setupGui();
+        var startup = new StartupTimer();
+        CompletableFuture<ProcessorListener> gui = startGui(startup);
         var configLoader = new ConfigLoader(getAppConfigPath());
-        ConfigProperties config = configLoader.readOrInitConfig();
-        ParameterProcessor processor = initProcessorAndHandyClient(config);
-        OscListener OSC = initOsc(config);
-        OSC.registerListener(config.avatarParameter(), processor::actOnValueChange);
-        processor.setValueChangeListener(val -> penetrationValueLabel.setText(String.valueOf(val)));
-        processor.run();
-//        configLoader.runReloading(processor::refreshConfig);
+        ConfigProperties config = startup.run("config", configLoader::readOrInitConfig);
+        ConfigApplier configApplier = startApp(config, startup, gui);
+        configLoader.watchForChanges(config, configApplier::apply);
     }
 
-    private static JLabel setupGui()
+    static CompletableFuture<ProcessorListener> startGui(StartupTimer startup)
     {
-        var frame = new JFrame();
-        frame.setSize(200, 200);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
-        var label = new JLabel("0", SwingConstants.CENTER);
-        label.setFont(getFontWithCalculatedFontSize(frame));
-        label.setToolTipText("Current penetration value collected via OSC");
-        frame.add(label);
-
-        frame.addComponentListener(new ComponentAdapter() {
-            @Override
-            public void componentResized(ComponentEvent e) {
-                super.componentResized(e);
-                label.setFont(getFontWithCalculatedFontSize(frame));
-            }
-        });
-        frame.setLocationRelativeTo(null); // Center window
-        frame.setVisible(true);
-        return label;
+        if (GraphicsEnvironment.isHeadless())
+        {
+            return CompletableFuture.completedFuture(ProcessorListener.NONE);
+        }
+        return startup.runAsync("gui", () ->
+        {
+            var mainFrame = new MainFrame();
+            mainFrame.showWindow();
+            return mainFrame;
+        }, SwingUtilities::invokeLater);
     }
 
-    private static Font getFontWithCalculatedFontSize(JFrame frame)
+    // Handy API calls are chained only where one depends on another, everything else starts right away and runs meanwhile
+    static ConfigApplier startApp(ConfigProperties config, StartupTimer startup, CompletableFuture<ProcessorListener> gui) throws Exception
     {
-        return new Font("Arial", Font.BOLD, calculateFontSize(frame));
+        CompletableFuture<Void> diagnostics = startup.runAsync("diagnostics", () ->
+        {
+            startMetricsServer(config);
+            startEventJournal(config);
+            startFlightRecording(config);
+            return null;
+        }, STARTUP_EXECUTOR);
+        CompletableFuture<OscListener> oscListener = startup.runAsync("osc", () ->
+        {
+            startOscCapture(config);
+            return initOsc(config);
+        }, STARTUP_EXECUTOR);
+        ParameterProcessor processor = awaitOrCloseApp(initProcessorAndHandyClient(config, startup));
+        processor.setListener(await(gui));
+        var configApplier = new ConfigApplier(config, processor, await(oscListener));
+        processor.run();
+        Runtime.getRuntime().addShutdownHook(new Thread(processor::shutdown, "shutdown"));
+        await(diagnostics);
+        startup.logTimeline();
+        return configApplier;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception
+    {
+        try
+        {
+            return future.join();
+        }
+        catch (CompletionException e)
+        {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
     }
 
-    private static int calculateFontSize(JFrame frame)
+    private static <T> T awaitOrCloseApp(CompletableFuture<T> future)
     {
-        int size = Math.min(frame.getBounds().height, frame.getBounds().width);
-        return Math.max((int) (size * 0.5f), 10);
+        try
+        {
+            return future.join();
+        }
+        catch (CompletionException e)
+        {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("{} Closing app...", cause instanceof IllegalStateException ? cause.getMessage() : "Could not reach Handy API (%s).".formatted(cause));
+            System.exit(1);
+            return null;
+        }
     }
 
     private static Path getAppConfigPath()
@@ -71,35 +113,97 @@ public class Main
         return Path.of(propertiesPath + "/" + "app.properties");
     }
 
-    private static ParameterProcessor initProcessorAndHandyClient(ConfigProperties config)
+    private static void startMetricsServer(ConfigProperties config) throws IOException
+    {
+        if (config.metricsPort() == null)
+        {
+            return;
+        }
+        var metricsServer = new MetricsServer(config.metricsPort());
+        metricsServer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(metricsServer::stop, "metrics-shutdown"));
+    }
+
+    private static void startEventJournal(ConfigProperties config) throws IOException
+    {
+        if (config.eventJournalSizeMb() == null)
+        {
+            return;
+        }
+        String fileName = "events-%s.bin".formatted(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        EventJournal.start(Path.of("journal", fileName), EVENT_JOURNAL_RING_CAPACITY, config.eventJournalSizeMb());
+        Runtime.getRuntime().addShutdownHook(new Thread(EventJournal::stop, "event-journal-shutdown"));
+    }
+
+    private static void startOscCapture(ConfigProperties config) throws IOException
+    {
+        if (config.oscCaptureSizeMb() == null) // ConfigLoader allows it with oscEngine=NIO only
+        {
+            return;
+        }
+        String fileName = "osc-%s.bin".formatted(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        OscCapture.start(Path.of("captures", fileName), config.oscCaptureSizeMb());
+        Runtime.getRuntime().addShutdownHook(new Thread(OscCapture::stop, "osc-capture-shutdown"));
+    }
+
+    private static void startFlightRecording(ConfigProperties config)
+    {
+        if (config.flightRecordingMinutes() == null)
+        {
+            return;
+        }
+        try
+        {
+            ContinuousRecording.start(Path.of("recordings"), Duration.ofMinutes(config.flightRecordingMinutes()));
+        }
+        catch (Exception e)
+        {
+            log.error("Could not start flight recording, continuing without it", e);
+        }
+    }
+
+    private static CompletableFuture<ParameterProcessor> initProcessorAndHandyClient(ConfigProperties config, StartupTimer startup)
     {
         return switch (config.processingAlgorithm())
         {
-            case HSP -> new HspParameterProcessor(getHandyClientV3AndValidateConnection(config), config);
+            case HSP, HSP_PREDICTIVE -> initHspProcessor(config, startup);
         };
     }
 
-    private static HandyClientV3 getHandyClientV3AndValidateConnection(ConfigProperties config)
+    // connected -> mode -> setup -> play, slider settings in parallel once connected
+    private static CompletableFuture<ParameterProcessor> initHspProcessor(ConfigProperties config, StartupTimer startup)
     {
-        return validateHandyConnection(new HandyClientV3(config.deviceConnectionKey(), config.handyApplicationId()));
+        CompletableFuture<HandyClientV3> handyClient = startup.track("handy-connect", () -> getHandyClientV3AndValidateConnection(config));
+        CompletableFuture<StreamClock> stream = handyClient.thenCompose(client -> startup.track("hsp-start", () -> HspParameterProcessor.startStreamAsync(client)));
+        CompletableFuture<Void> sliderSettings = handyClient.thenCompose(client -> startup.track("slider-settings",
+                () -> HspParameterProcessor.applySliderSettingsAsync(client, config.sliderMin(), config.sliderMax())));
+        return stream.thenCombine(sliderSettings, (streamClock, ignored) -> new HspParameterProcessor(handyClient.join(), config, streamClock));
     }
 
-    private static <T extends HandyClient> T validateHandyConnection(T handyClient)
+    private static CompletableFuture<HandyClientV3> getHandyClientV3AndValidateConnection(ConfigProperties config)
     {
-        if (!handyClient.checkConnectionStatus())
+        return CompletableFuture.supplyAsync(() -> new HandyClientV3(config.handyApiUri(), config.deviceConnectionKey(), config.handyApplicationId(), config.hedgeHspAdd()), STARTUP_EXECUTOR)
+                .thenCompose(Main::validateHandyConnection);
+    }
+
+    private static <T extends HandyClient> CompletableFuture<T> validateHandyConnection(T handyClient)
+    {
+        return handyClient.checkConnectionStatusAsync().thenApply(connected ->
         {
-            log.error("Handy not connected! Check your connection and 'deviceConnectionKey' in config. Closing app...");
-            System.exit(1);
-        }
-        log.info("Handy connected...");
-        return handyClient;
+            if (!connected)
+            {
+                throw new IllegalStateException("Handy not connected! Check your connection and 'deviceConnectionKey' in config.");
+            }
+            log.info("Handy connected...");
+            return handyClient;
+        });
     }
 
     private static OscListener initOsc(ConfigProperties config) throws IOException
     {
         try
         {
-            return new OscListener(config.listenOnPort());
+            return new OscListener(config.listenOnPort(), config.oscEngine());
         }
         catch (IOException e)
         {
@@ -107,4 +211,4 @@ public class Main
             throw e;
         }
     }
-}
\ No newline at end of file
+}
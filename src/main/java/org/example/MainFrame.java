@@ -1,8 +1,121 @@
 package org.example;
 
+import org.example.processor.ProcessorListener;
+
 import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
-public class MainFrame extends JFrame
+// Processor threads only store latest values, EDT samples them at fixed frame rate.
+// Nothing is repainted while window is minimized.
+public class MainFrame extends JFrame implements ProcessorListener
 {
+    private static final int FRAMES_PER_SECOND = 30;
+    private static final int GRAPH_SECONDS = 10;
+
+    private final JLabel penetrationValueLabel = new JLabel("0", SwingConstants.CENTER);
+    private final PositionGraph graph = new PositionGraph(FRAMES_PER_SECOND * GRAPH_SECONDS);
+    private final Timer frameTimer = new Timer(1000 / FRAMES_PER_SECOND, e -> renderFrame());
+
+    private volatile int latestInputValue;
+    private volatile int latestSentValue = PositionGraph.NO_VALUE;
+    private volatile int sentBatches; // Written by sender thread only
+    private volatile int latestLeewayMs = PositionGraph.NO_VALUE;
+    private volatile int starvationRisks; // Written by sender thread only
+    private int renderedSentBatches; // Accessed by EDT only
+    private int renderedInputValue = -1; // Accessed by EDT only
+
+    public MainFrame()
+    {
+        setSize(400, 300);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        penetrationValueLabel.setFont(getFontWithCalculatedFontSize());
+        penetrationValueLabel.setToolTipText("Current penetration value collected via OSC");
+        add(penetrationValueLabel, BorderLayout.NORTH);
+        add(graph, BorderLayout.CENTER);
+
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                super.componentResized(e);
+                penetrationValueLabel.setFont(getFontWithCalculatedFontSize());
+            }
+        });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowIconified(WindowEvent e) {
+                frameTimer.stop();
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                frameTimer.start();
+            }
+        });
+        frameTimer.setCoalesce(true); // Skip frames instead of queueing them when EDT is busy
+        setLocationRelativeTo(null); // Center window
+    }
+
+    public void showWindow()
+    {
+        SwingUtilities.invokeLater(() ->
+        {
+            setVisible(true);
+            frameTimer.start();
+        });
+    }
+
+    @Override
+    public void onInputValue(int penetration)
+    {
+        latestInputValue = penetration;
+    }
+
+    @Override
+    public void onPointsSent(int lastPenetration)
+    {
+        latestSentValue = lastPenetration;
+        sentBatches++;
+    }
+
+    @Override
+    public void onLeeway(int leewayMs)
+    {
+        latestLeewayMs = leewayMs;
+    }
+
+    @Override
+    public void onStarvationRisk(int marginMs)
+    {
+        starvationRisks++;
+    }
+
+    private void renderFrame()
+    {
+        int inputValue = latestInputValue;
+        int batches = sentBatches;
+        graph.setStarvationRisks(starvationRisks);
+        graph.addFrame(inputValue, latestSentValue, batches != renderedSentBatches, latestLeewayMs);
+        renderedSentBatches = batches;
+        if (inputValue != renderedInputValue)
+        {
+            penetrationValueLabel.setText(String.valueOf(inputValue));
+            renderedInputValue = inputValue;
+        }
+    }
+
+    private Font getFontWithCalculatedFontSize()
+    {
+        return new Font("Arial", Font.BOLD, calculateFontSize());
+    }
+
+    private int calculateFontSize()
+    {
+        int size = Math.min(getBounds().height / 3, getBounds().width);
+        return Math.max((int) (size * 0.5f), 10);
+    }
 }
@@ -2,9 +2,17 @@ package org.example;
 
 import com.illposed.osc.OSCMessage;
 import com.illposed.osc.OSCMessageListener;
+import com.illposed.osc.argument.OSCTimeTag64;
 import com.illposed.osc.messageselector.OSCPatternAddressMessageSelector;
 import com.illposed.osc.transport.OSCPortIn;
 import lombok.extern.slf4j.Slf4j;
+import org.example.metrics.Metrics;
+import org.example.osc.FloatConsumer;
+import org.example.osc.NioOscReceiver;
+import org.example.osc.OscEngine;
+import org.example.osc.OscSourceSelector;
+import org.example.osc.SourceSelection;
+import org.example.osc.TimetagClock;
 
 import java.io.IOException;
 import java.util.List;
@@ -14,16 +22,60 @@ import java.util.function.Consumer;
 public class OscListener
 {
     private final OSCPortIn oscListener;
+    private final NioOscReceiver nioReceiver;
+    private final TimetagClock timetagClock = new TimetagClock(); // Accessed by javaosc listener thread only
+
+    @FunctionalInterface
+    private interface JavaOscValueConsumer
+    {
+        void accept(String address, Object value, OSCTimeTag64 time);
+    }
 
     public OscListener(int portIn) throws IOException
     {
-        this.oscListener = new OSCPortIn(portIn);
-        this.oscListener.setDaemonListener(false);
-        this.oscListener.startListening();
-        log.info("Listening for OSC messages on port {}...", portIn);
+        this(portIn, OscEngine.JAVAOSC);
+    }
+
+    public OscListener(int portIn, OscEngine engine) throws IOException
+    {
+        if (engine == OscEngine.NIO)
+        {
+            this.oscListener = null;
+            this.nioReceiver = new NioOscReceiver(portIn);
+            this.nioReceiver.startListening();
+        }
+        else
+        {
+            this.nioReceiver = null;
+            this.oscListener = new OSCPortIn(portIn);
+            this.oscListener.setDaemonListener(false);
+            this.oscListener.startListening();
+        }
+        log.info("Listening for OSC messages on port {} ({} engine)...", portIn, engine);
+    }
+
+    public void close() throws IOException
+    {
+        if (nioReceiver != null)
+        {
+            nioReceiver.stopListening();
+            return;
+        }
+        oscListener.stopListening();
+        oscListener.close();
     }
 
     public <T> void registerListener(String messageSelector, Consumer<T> valueConsumer)
+    {
+        if (nioReceiver != null)
+        {
+            nioReceiver.addListener(messageSelector, (value, sampleNanos) -> valueConsumer.accept((T) Float.valueOf(value))); // NIO engine only decodes numeric arguments
+            return;
+        }
+        addJavaOscListener(messageSelector, (address, value, time) -> valueConsumer.accept((T) value));
+    }
+
+    private void addJavaOscListener(String messageSelector, JavaOscValueConsumer valueConsumer)
     {
         OSCMessageListener messageListener = (event) ->
         {
@@ -37,7 +89,7 @@ public class OscListener
                     log.error("Empty arguments for {}", address);
                     return;
                 }
-                valueConsumer.accept((T) arguments.getFirst()); // TODO Dynamic check and error
+                valueConsumer.accept(address, arguments.getFirst(), event.getTime()); // TODO Dynamic check and error
             }
             catch (Exception e) // TODO Better try-catch
             {
@@ -46,4 +98,55 @@ public class OscListener
         };
         oscListener.getDispatcher().addListener(new OSCPatternAddressMessageSelector(messageSelector), messageListener);
     }
+
+    // With wildcard selector only values of the address picked by selection are passed to consumer (see OscSourceSelector)
+    public void registerFloatListener(String messageSelector, SourceSelection selection, FloatConsumer valueConsumer)
+    {
+        if (selection == SourceSelection.ALL || !isWildcard(messageSelector))
+        {
+            registerFloatListener(messageSelector, valueConsumer);
+            return;
+        }
+        var selector = new OscSourceSelector(selection, valueConsumer);
+        if (nioReceiver != null)
+        {
+            nioReceiver.addListener(messageSelector, selector);
+            return;
+        }
+        addJavaOscListener(messageSelector, (address, value, time) -> acceptFloat(messageSelector, value, time,
+                (floatValue, sampleNanos) -> selector.accept(address, floatValue, sampleNanos)));
+    }
+
+    public void registerFloatListener(String messageSelector, FloatConsumer valueConsumer)
+    {
+        if (nioReceiver != null)
+        {
+            nioReceiver.addListener(messageSelector, valueConsumer);
+            return;
+        }
+        addJavaOscListener(messageSelector, (address, value, time) -> acceptFloat(messageSelector, value, time, valueConsumer));
+    }
+
+    private static boolean isWildcard(String messageSelector)
+    {
+        return messageSelector.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    private void acceptFloat(String messageSelector, Object value, OSCTimeTag64 time, FloatConsumer valueConsumer)
+    {
+        long dispatchedNanos = System.nanoTime(); // javaosc does not expose packet receive time
+        long sampleNanos = time == null ? dispatchedNanos : timetagClock.toLocalNanos(time.getNtpTime(), dispatchedNanos);
+        switch (value)
+        {
+            case Float f -> valueConsumer.accept(f, sampleNanos);
+            case Number n -> valueConsumer.accept(n.floatValue(), sampleNanos);
+            case Boolean b -> valueConsumer.accept(b ? 1.f : 0.f, sampleNanos);
+            default ->
+            {
+                log.error("Unsupported OSC argument type {} for {}", value.getClass().getSimpleName(), messageSelector);
+                return;
+            }
+        }
+        Metrics.OSC_TO_ENQUEUE_NANOS.record(System.nanoTime() - dispatchedNanos);
+    }
 }
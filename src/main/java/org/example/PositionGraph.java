@@ -0,0 +1,150 @@
+package org.example;
+
+import javax.swing.*;
+import java.awt.*;
+
+// Scrolling graph of last frames, newest on the right. Accessed on EDT only.
+public class PositionGraph extends JComponent
+{
+    static final int NO_VALUE = Integer.MIN_VALUE;
+    private static final int MIN_LEEWAY_SCALE_MS = 100;
+    private static final Color INPUT_COLOR = new Color(0x4FC3F7);
+    private static final Color SENT_COLOR = new Color(0xFFB74D);
+    private static final Color LEEWAY_COLOR = new Color(0x81C784);
+    private static final Color GRID_COLOR = new Color(0x424242);
+    private static final Color WARNING_COLOR = new Color(0xE57373);
+    private static final int SENT_MARKER_SIZE = 4;
+
+    // Preallocated rings, one entry per frame
+    private final int[] input;
+    private final int[] sent;
+    private final boolean[] sentInFrame;
+    private final int[] leeway;
+    private int head; // Index of the next frame
+    private int frames;
+    private int starvationRisks;
+
+    public PositionGraph(int capacity)
+    {
+        this.input = new int[capacity];
+        this.sent = new int[capacity];
+        this.sentInFrame = new boolean[capacity];
+        this.leeway = new int[capacity];
+        setBackground(Color.BLACK);
+        setOpaque(true);
+        setToolTipText("Blue: penetration from OSC, orange: sent to Handy (dot = new request), green: time left before points were played");
+    }
+
+    public void setStarvationRisks(int starvationRisks)
+    {
+        this.starvationRisks = starvationRisks;
+    }
+
+    public void addFrame(int inputValue, int sentValue, boolean pointsSent, int leewayMs)
+    {
+        input[head] = inputValue;
+        sent[head] = sentValue;
+        sentInFrame[head] = pointsSent;
+        leeway[head] = leewayMs;
+        head = (head + 1) % input.length;
+        frames = Math.min(frames + 1, input.length);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics)
+    {
+        var g = (Graphics2D) graphics;
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int width = getWidth();
+        int height = getHeight();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, width, height);
+        g.setColor(GRID_COLOR);
+        for (int percent = 25; percent < 100; percent += 25)
+        {
+            int y = height - percent * height / 100;
+            g.drawLine(0, y, width, y);
+        }
+        if (frames < 2)
+        {
+            return;
+        }
+        int leewayScaleMs = leewayScale();
+        drawSeries(g, input, 100, INPUT_COLOR, width, height);
+        drawSeries(g, leeway, leewayScaleMs, LEEWAY_COLOR, width, height);
+        drawSeries(g, sent, 100, SENT_COLOR, width, height);
+        drawSentMarkers(g, width, height);
+        g.setColor(LEEWAY_COLOR);
+        int lastLeeway = leeway[index(frames - 1)];
+        g.drawString(lastLeeway == NO_VALUE ? "leeway: -" : "leeway: %d ms (scale %d ms)".formatted(lastLeeway, leewayScaleMs), 4, g.getFontMetrics().getAscent() + 2);
+        if (starvationRisks > 0)
+        {
+            g.setColor(WARNING_COLOR);
+            g.drawString("close to starving: %d batches".formatted(starvationRisks), 4, 2 * g.getFontMetrics().getAscent() + 4);
+        }
+    }
+
+    private void drawSeries(Graphics2D g, int[] values, int scale, Color color, int width, int height)
+    {
+        g.setColor(color);
+        int previousX = 0;
+        int previousY = NO_VALUE;
+        for (int frame = 0; frame < frames; frame++)
+        {
+            int value = values[index(frame)];
+            int x = x(frame, width);
+            int y = value == NO_VALUE ? NO_VALUE : y(value, scale, height);
+            if (y != NO_VALUE && previousY != NO_VALUE)
+            {
+                g.drawLine(previousX, previousY, x, y);
+            }
+            previousX = x;
+            previousY = y;
+        }
+    }
+
+    private void drawSentMarkers(Graphics2D g, int width, int height)
+    {
+        g.setColor(SENT_COLOR);
+        for (int frame = 0; frame < frames; frame++)
+        {
+            int index = index(frame);
+            if (sentInFrame[index] && sent[index] != NO_VALUE)
+            {
+                g.fillOval(x(frame, width) - SENT_MARKER_SIZE / 2, y(sent[index], 100, height) - SENT_MARKER_SIZE / 2, SENT_MARKER_SIZE, SENT_MARKER_SIZE);
+            }
+        }
+    }
+
+    // Leeway uses its own scale, fitted to largest visible value
+    private int leewayScale()
+    {
+        int max = MIN_LEEWAY_SCALE_MS;
+        for (int frame = 0; frame < frames; frame++)
+        {
+            int value = leeway[index(frame)];
+            if (value != NO_VALUE)
+            {
+                max = Math.max(max, Math.abs(value));
+            }
+        }
+        return max;
+    }
+
+    // Oldest frame = 0
+    private int index(int frame)
+    {
+        return (head - frames + frame + input.length) % input.length;
+    }
+
+    private int x(int frame, int width)
+    {
+        return (input.length - frames + frame) * (width - 1) / (input.length - 1);
+    }
+
+    private static int y(int value, int scale, int height)
+    {
+        return height - 1 - Math.clamp((long) value * (height - 1) / scale, 0, height - 1);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+// Measures startup phases, which can overlap, and logs them as a timeline
+@Slf4j
+public class StartupTimer
+{
+    private final long startNanos = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<>(); // Guarded by this
+
+    private record Phase(String name, long startNanos, long endNanos, boolean failed)
+    {
+    }
+
+    public <T> T run(String name, Callable<T> action) throws Exception
+    {
+        long phaseStartNanos = System.nanoTime();
+        boolean failed = true;
+        try
+        {
+            T result = action.call();
+            failed = false;
+            return result;
+        }
+        finally
+        {
+            record(name, phaseStartNanos, failed);
+        }
+    }
+
+    public <T> CompletableFuture<T> runAsync(String name, Callable<T> action, Executor executor)
+    {
+        return CompletableFuture.supplyAsync(() ->
+        {
+            try
+            {
+                return run(name, action);
+            }
+            catch (Exception e)
+            {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    // Phase ends when future completes
+    public <T> CompletableFuture<T> track(String name, Supplier<CompletableFuture<T>> action)
+    {
+        long phaseStartNanos = System.nanoTime();
+        return action.get().whenComplete((result, e) -> record(name, phaseStartNanos, e != null));
+    }
+
+    private synchronized void record(String name, long phaseStartNanos, boolean failed)
+    {
+        phases.add(new Phase(name, phaseStartNanos, System.nanoTime(), failed));
+    }
+
+    public synchronized void logTimeline()
+    {
+        var timeline = new StringBuilder("Started in %d ms:".formatted(millisSinceStart(System.nanoTime())));
+        phases.stream()
+                .sorted(Comparator.comparingLong(Phase::startNanos))
+                .forEach(phase -> timeline.append("%n  %-16s %5d -> %5d ms (%d ms)%s".formatted(phase.name(),
+                        millisSinceStart(phase.startNanos()), millisSinceStart(phase.endNanos()),
+                        (phase.endNanos() - phase.startNanos()) / 1_000_000, phase.failed() ? " FAILED" : "")));
+        log.info(timeline.toString());
+    }
+
+    private long millisSinceStart(long nanos)
+    {
+        return (nanos - startNanos) / 1_000_000;
+    }
+}
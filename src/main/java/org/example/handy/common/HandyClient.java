@@ -1,7 +1,11 @@
 package org.example.handy.common;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface HandyClient
 {
     HandyBaseResponseWithError changeMode(int mode);
     boolean checkConnectionStatus();
+    CompletableFuture<HandyBaseResponseWithError> changeModeAsync(int mode);
+    CompletableFuture<Boolean> checkConnectionStatusAsync();
 }
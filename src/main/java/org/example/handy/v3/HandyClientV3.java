@@ -9,163 +9,292 @@ import org.example.handy.common.HandyBaseResponseWithError;
 import org.example.handy.common.HandyClient;
 import org.example.handy.v3.dto.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 // Firmware 4.x only
 @Slf4j
 public class HandyClientV3 implements HandyClient
 {
-    private static final String BASE_URI = "https://www.handyfeeling.com/api/handy-rest/v3/";
+    public static final String DEFAULT_BASE_URI = "https://www.handyfeeling.com/api/handy-rest/v3/";
     public static final String DEVICE_CONNECTION_KEY_HEADER = "X-Connection-Key";
     public static final String APPLICATION_ID_KEY_HEADER = "X-Api-Key";
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+    private static final int MAX_ATTEMPTS = 3; // Only idempotent requests are retried
+    private static final long BACKOFF_BASE_MS = 100;
+    private static final float HEDGE_LATENCY_QUANTILE = 0.95f;
+    private static final long MIN_HEDGE_DELAY_MS = 20;
+    private static final int HSP_ADD_BUFFER_POOL_SIZE = 4;
+    private static final int HSP_ADD_BUFFER_POINTS = 128;
     private final String deviceConnectionKey;
     private final String applicationId;
-    private volatile HttpClient httpClient;
+    private final HttpClientRotator httpClients;
     private final ObjectMapper objectMapper;
-    int requestSum = 0;
-    int requestNo = 0;
-    private final AtomicInteger requestCount = new AtomicInteger(0);
+    private final HspAddJsonCodec hspAddJsonCodec;
+    private final ArrayBlockingQueue<byte[]> hspAddBuffers = new ArrayBlockingQueue<>(HSP_ADD_BUFFER_POOL_SIZE);
+    private final LatencyTracker hspAddLatency = new LatencyTracker(64);
+    private final boolean hedgeHspAdd;
+    private final URI modeUri;
+    private final URI hspPlayUri;
+    private final URI hspAddUri;
+    private final URI hspSetupUri;
+    private final URI connectedUri;
+    private final URI sliderStrokeUri;
+    private final HttpRequest.Builder jsonRequestTemplate; // Never modified, only copied
+    private final HttpRequest.Builder getRequestTemplate;
 
     public HandyClientV3(String deviceConnectionKey, String applicationId)
     {
-        this.httpClient = HttpClient.newHttpClient();
+        this(DEFAULT_BASE_URI, deviceConnectionKey, applicationId, false);
+    }
+
+    public HandyClientV3(String baseUri, String deviceConnectionKey, String applicationId, boolean hedgeHspAdd)
+    {
+        URI base = URI.create(baseUri.endsWith("/") ? baseUri : baseUri + "/");
+        this.httpClients = new HttpClientRotator(HttpClient::newHttpClient, client -> warmUpConnection(client, base));
         this.deviceConnectionKey = deviceConnectionKey;
         this.applicationId = applicationId;
+        this.hedgeHspAdd = hedgeHspAdd;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.hspAddJsonCodec = new HspAddJsonCodec(objectMapper);
+        this.modeUri = base.resolve("mode");
+        this.hspPlayUri = base.resolve("hsp/play");
+        this.hspAddUri = base.resolve("hsp/add");
+        this.hspSetupUri = base.resolve("hsp/setup");
+        this.connectedUri = base.resolve("connected");
+        this.sliderStrokeUri = base.resolve("slider/stroke");
+        this.getRequestTemplate = HttpRequest.newBuilder()
+                .header("accept", "application/json")
+                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
+                .header(APPLICATION_ID_KEY_HEADER, applicationId);
+        this.jsonRequestTemplate = getRequestTemplate.copy()
+                .header("Content-Type", "application/json");
     }
 
-    @SneakyThrows
     @Override
     public HandyBaseResponseWithError changeMode(int mode)
     {
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URI + "mode"))
-                .header("accept", "application/json")
-                .header("Content-Type", "application/json")
-                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
-                .header(APPLICATION_ID_KEY_HEADER, applicationId)
+        return await(changeModeAsync(mode));
+    }
+
+    @Override
+    public CompletableFuture<HandyBaseResponseWithError> changeModeAsync(int mode)
+    {
+        var request = jsonRequestTemplate.copy()
+                .uri(modeUri)
+                .timeout(DEFAULT_TIMEOUT)
                 .PUT(HttpRequest.BodyPublishers.ofString("{\"mode\":%s}".formatted(mode)))
                 .build();
-        HttpResponse<String> httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        return objectMapper.readValue(httpResponse.body(), HandyBaseResponseWithError.class);
+        return withRetries(() -> sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(httpResponse -> parse(httpResponse.body(), HandyBaseResponseWithError.class));
     }
 
-    @SneakyThrows
     public HandyBaseResponseWithError hspPlay(long startTime, long serverTime, boolean pauseOnStarving)
+    {
+        return await(hspPlayAsync(startTime, serverTime, pauseOnStarving));
+    }
+
+    public CompletableFuture<HandyBaseResponseWithError> hspPlayAsync(long startTime, long serverTime, boolean pauseOnStarving)
     {
         String body = "{\"start_time\":%s,\"server_time\":%s,\"playback_rate\":1,\"pause_on_starving\":%s,\"loop\":false}".formatted(startTime, serverTime, pauseOnStarving);
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URI + "hsp/play"))
-                .header("accept", "application/json")
-                .header("Content-Type", "application/json")
-                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
-                .header(APPLICATION_ID_KEY_HEADER, applicationId)
+        var request = jsonRequestTemplate.copy()
+                .uri(hspPlayUri)
+                .timeout(DEFAULT_TIMEOUT)
                 .PUT(HttpRequest.BodyPublishers.ofString(body))
                 .build();
         log.info("Starting HSP stream ({})", body);
-        var httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        log.info("Started HSP stream (response=[{}])", httpResponse.body());
-        return objectMapper.readValue(httpResponse.body(), HandyBaseResponseWithError.class);
+        return withRetries(() -> sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(httpResponse ->
+                {
+                    log.info("Started HSP stream (response=[{}])", httpResponse.body());
+                    return parse(httpResponse.body(), HandyBaseResponseWithError.class);
+                });
     }
 
-    @SneakyThrows
     public HandyHspAddResponse hspAdd(HspAddRequest requestBody)
     {
-        String body = objectMapper.writeValueAsString(requestBody);
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URI + "hsp/add"))
-                .header("accept", "application/json")
-                .header("Content-Type", "application/json")
-                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
-                .header(APPLICATION_ID_KEY_HEADER, applicationId)
-                .PUT(HttpRequest.BodyPublishers.ofString(body))
+        return await(hspAddAsync(requestBody, DEFAULT_TIMEOUT));
+    }
+
+    public CompletableFuture<HandyHspAddResponse> hspAddAsync(HspAddRequest requestBody, Duration deadline)
+    {
+        return hspAddAsync(HspPoints.of(requestBody.points()), requestBody.flush(), deadline, true);
+    }
+
+    // Never retried after failure (not idempotent), deadline should end when sent points are no longer useful for the device.
+    // Points are serialized and request is handed to http client before returning, so caller can reuse them right away.
+    // Hedged request completes only after both copies settle. Without resendAllowed request is neither hedged nor resent
+    // after GOAWAY, use it when later requests may be sent before this one completes so it can't reach Handy after them.
+    public CompletableFuture<HandyHspAddResponse> hspAddAsync(HspPoints points, boolean flush, Duration deadline, boolean resendAllowed)
+    {
+        byte[] buffer = acquireHspAddBuffer(points.size());
+        int length = HspAddJsonCodec.writeRequest(points, flush, buffer);
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> primary = sendHspAdd(buffer, length, deadline, resendAllowed)
+                .whenComplete((httpResponse, e) ->
+                {
+                    if (e != null)
+                    {
+                        return; // After failure buffer is left to GC
+                    }
+                    hspAddBuffers.offer(buffer); // Body is fully sent once response is received
+                    long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    hspAddLatency.record(tookMs);
+                    if (log.isTraceEnabled()) // Sent points and responses are recorded by EventJournal
+                    {
+                        log.trace("Request took {} ms (p50={} ms, p99={} ms)", tookMs, hspAddLatency.quantile(0.5f, tookMs), hspAddLatency.quantile(0.99f, tookMs));
+                    }
+                });
+        CompletableFuture<HttpResponse<byte[]>> response = hedgeHspAdd && resendAllowed ? withHedge(primary, buffer, length, deadline) : primary;
+        return response.thenApply(httpResponse ->
+        {
+            HandyHspAddResponse handyHspAddResponse = readHspAddResponse(httpResponse.body());
+            if (handyHspAddResponse.error() == null && handyHspAddResponse.result() == null)
+            {
+                log.error("Received potentially empty response ({})", new String(httpResponse.body(), StandardCharsets.UTF_8));
+            }
+            return handyHspAddResponse;
+        });
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> sendHspAdd(byte[] body, int length, Duration deadline, boolean retryOnGoAway)
+    {
+        var request = jsonRequestTemplate.copy()
+                .uri(hspAddUri)
+                .timeout(deadline)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(body, 0, length)) // Wraps buffer without copying
                 .build();
-        log.trace("Sending points to HSP stream ({})", body);
-        long start = System.currentTimeMillis();
-        var httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        attemptRefreshingHttpClient();
-        if (log.isTraceEnabled())
+        return sendAsync(request, HttpResponse.BodyHandlers.ofByteArray(), retryOnGoAway);
+    }
+
+    // Sends a duplicate when the primary request is slower than usual. Result waits for both requests to settle, so the
+    // slower copy can't reach Handy after requests sent later, primary response is used when it succeeded.
+    private CompletableFuture<HttpResponse<byte[]>> withHedge(CompletableFuture<HttpResponse<byte[]>> primary, byte[] buffer, int length, Duration deadline)
+    {
+        long hedgeDelayMs = Math.max(hspAddLatency.quantile(HEDGE_LATENCY_QUANTILE, deadline.toMillis()), MIN_HEDGE_DELAY_MS);
+        Duration hedgeDeadline = deadline.minusMillis(hedgeDelayMs);
+        if (hedgeDeadline.isNegative() || hedgeDeadline.isZero())
         {
-            long tookMs = System.currentTimeMillis() - start;
-            requestSum += (int) tookMs;
-            requestNo++;
-            log.trace("Request took {} ms, current average {} ms", tookMs, requestSum / requestNo);
+            return primary;
         }
-        HandyHspAddResponse handyHspAddResponse = objectMapper.readValue(httpResponse.body(), HandyHspAddResponse.class);
-        log.trace("Sent points to HSP stream (response={})", httpResponse.body());
-        if (handyHspAddResponse.error() == null && handyHspAddResponse.result() == null)
+        byte[] hedgeBody = Arrays.copyOf(buffer, length); // Pooled buffer stays owned by the primary request
+        CompletableFuture<HttpResponse<byte[]>> hedge = CompletableFuture
+                .runAsync(() -> {}, CompletableFuture.delayedExecutor(hedgeDelayMs, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored ->
+                {
+                    if (primary.isDone())
+                    {
+                        return primary;
+                    }
+                    log.debug("HSP add slower than {} ms, sending hedged request", hedgeDelayMs);
+                    return sendHspAdd(hedgeBody, length, hedgeDeadline, true);
+                });
+        return CompletableFuture.allOf(primary, hedge)
+                .exceptionally(e -> null)
+                .thenCompose(ignored -> primary.isCompletedExceptionally() ? hedge : primary);
+    }
+
+    private byte[] acquireHspAddBuffer(int points)
+    {
+        int requiredLength = HspAddJsonCodec.maxRequestLength(points);
+        byte[] buffer = hspAddBuffers.poll();
+        if (buffer == null || buffer.length < requiredLength)
         {
-            log.error("Recieved potentially empty response ({})", httpResponse.body());
+            buffer = new byte[HspAddJsonCodec.maxRequestLength(Math.max(points, HSP_ADD_BUFFER_POINTS))];
         }
-        return handyHspAddResponse;
+        return buffer;
     }
 
-    @SneakyThrows
     public HandySetupResponse hspSetup()
     {
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URI + "hsp/setup"))
-                .header("accept", "application/json")
-                .header("Content-Type", "application/json")
-                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
-                .header(APPLICATION_ID_KEY_HEADER, applicationId)
+        return await(hspSetupAsync());
+    }
+
+    public CompletableFuture<HandySetupResponse> hspSetupAsync()
+    {
+        var request = jsonRequestTemplate.copy()
+                .uri(hspSetupUri)
+                .timeout(DEFAULT_TIMEOUT)
                 .PUT(HttpRequest.BodyPublishers.ofString("{\"stream_id\":1}"))
                 .build();
         log.info("Initializing HSP stream with id 1");
-        var httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        log.info("Initialized HSP stream with id 1 ({})", httpResponse.body());
-        return objectMapper.readValue(httpResponse.body(), HandySetupResponse.class);
+        return withRetries(() -> sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(httpResponse ->
+                {
+                    log.info("Initialized HSP stream with id 1 ({})", httpResponse.body());
+                    return parse(httpResponse.body(), HandySetupResponse.class);
+                });
     }
 
-    @SneakyThrows
     @Override
     public boolean checkConnectionStatus()
     {
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URI + "connected"))
-                .header("accept", "application/json")
-                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
-                .header(APPLICATION_ID_KEY_HEADER, applicationId)
+        return await(checkConnectionStatusAsync());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> checkConnectionStatusAsync()
+    {
+        var request = getRequestTemplate.copy()
+                .uri(connectedUri)
+                .timeout(DEFAULT_TIMEOUT)
                 .GET()
                 .build();
-        HttpResponse<String> httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        ConnectionStatusResponse response = objectMapper.readValue(httpResponse.body(), ConnectionStatusResponse.class);
-        if (response.result() == null)
-        {
-            log.error("Error when checking connection to Handy! (reason: {})", response);
-            return false;
-        }
-        return response.result().connected();
+        return withRetries(() -> sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(httpResponse ->
+                {
+                    ConnectionStatusResponse response = parse(httpResponse.body(), ConnectionStatusResponse.class);
+                    if (response.result() == null)
+                    {
+                        log.error("Error when checking connection to Handy! (reason: {})", response);
+                        return false;
+                    }
+                    return response.result().connected();
+                });
     }
 
-    @SneakyThrows
     public Optional<SliderSettingsResult> getSliderSettings()
     {
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URI + "slider/stroke"))
-                .header("accept", "application/json")
-                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
-                .header(APPLICATION_ID_KEY_HEADER, applicationId)
+        return await(getSliderSettingsAsync());
+    }
+
+    public CompletableFuture<Optional<SliderSettingsResult>> getSliderSettingsAsync()
+    {
+        var request = getRequestTemplate.copy()
+                .uri(sliderStrokeUri)
+                .timeout(DEFAULT_TIMEOUT)
                 .GET()
                 .build();
-        HttpResponse<String> httpResponse = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        SliderSettingsResponse response = objectMapper.readValue(httpResponse.body(), SliderSettingsResponse.class);
-        if (response.result() == null)
-        {
-            log.error("Error when checking slider settings! (reason: {})", response);
-            return Optional.empty();
-        }
-        return Optional.of(response.result());
+        return withRetries(() -> sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(httpResponse ->
+                {
+                    SliderSettingsResponse response = parse(httpResponse.body(), SliderSettingsResponse.class);
+                    if (response.result() == null)
+                    {
+                        log.error("Error when checking slider settings! (reason: {})", response);
+                        return Optional.empty();
+                    }
+                    return Optional.of(response.result());
+                });
     }
 
-    @SneakyThrows
     public void setSliderSettings(Float min, Float max)
+    {
+        await(setSliderSettingsAsync(min, max));
+    }
+
+    public CompletableFuture<Void> setSliderSettingsAsync(Float min, Float max)
     {
         String body;
         if (ObjectUtils.allNotNull(min, max))
@@ -182,31 +311,136 @@ public class HandyClientV3 implements HandyClient
         }
         else
         {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
-        var request = HttpRequest.newBuilder()
-                .uri(URI.create(BASE_URI + "slider/stroke"))
-                .header("accept", "application/json")
-                .header("Content-Type", "application/json")
-                .header(DEVICE_CONNECTION_KEY_HEADER, deviceConnectionKey)
-                .header(APPLICATION_ID_KEY_HEADER, applicationId)
+        var request = jsonRequestTemplate.copy()
+                .uri(sliderStrokeUri)
+                .timeout(DEFAULT_TIMEOUT)
                 .PUT(HttpRequest.BodyPublishers.ofString(body))
                 .build();
         log.info("Setting slider limits {}...", body);
-        httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return withRetries(() -> sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenAccept(httpResponse -> log.trace("Slider limits set ({})", httpResponse.body()));
+    }
+
+    public HttpClientRotator getHttpClients()
+    {
+        return httpClients;
     }
 
-    private boolean attemptRefreshingHttpClient() // Prevent GOAWAY (every 94 requests on my machine)
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
     {
-        int count = requestCount.incrementAndGet();
-        if (count >= 80)// TODO Param config?
+        return sendAsync(request, bodyHandler, true);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, boolean retryOnGoAway)
+    {
+        HttpClient client = httpClients.client();
+        return sendAsync(client, request, bodyHandler)
+                .exceptionallyCompose(e ->
+                {
+                    if (!HttpClientRotator.isGoAway(e))
+                    {
+                        return CompletableFuture.failedFuture(unwrap(e));
+                    }
+                    httpClients.onGoAway(client);
+                    if (!retryOnGoAway)
+                    {
+                        return CompletableFuture.failedFuture(unwrap(e));
+                    }
+                    // Server did not process request refused with GOAWAY, so it is safe to send it again on a new connection
+                    log.debug("Received GOAWAY, retrying request on new connection");
+                    return sendAsync(httpClients.client(), request, bodyHandler);
+                });
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpClient client, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+    {
+        return client.sendAsync(request, bodyHandler)
+                .thenApply(response ->
+                {
+                    httpClients.onRequestCompleted(client);
+                    return response;
+                });
+    }
+
+    // Retries network failures with exponential backoff and full jitter, so clients do not retry in lockstep
+    private <T> CompletableFuture<T> withRetries(Supplier<CompletableFuture<T>> call)
+    {
+        return withRetries(call, 1);
+    }
+
+    private <T> CompletableFuture<T> withRetries(Supplier<CompletableFuture<T>> call, int attempt)
+    {
+        return call.get().exceptionallyCompose(e ->
+        {
+            Throwable cause = unwrap(e);
+            if (attempt >= MAX_ATTEMPTS || !(cause instanceof IOException))
+            {
+                return CompletableFuture.failedFuture(cause);
+            }
+            long backoffMs = 1 + ThreadLocalRandom.current().nextLong(BACKOFF_BASE_MS << attempt);
+            log.warn("Request to Handy failed ({}), retrying in {} ms (attempt {}/{})", cause.toString(), backoffMs, attempt + 1, MAX_ATTEMPTS);
+            return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> withRetries(call, attempt + 1));
+        });
+    }
+
+    @SneakyThrows
+    private <T> T parse(String body, Class<T> type)
+    {
+        return objectMapper.readValue(body, type);
+    }
+
+    @SneakyThrows
+    private HandyHspAddResponse readHspAddResponse(byte[] body)
+    {
+        return hspAddJsonCodec.readResponse(body);
+    }
+
+    // Blocking variants keep throwing the original exceptions
+    @SneakyThrows
+    private static <T> T await(CompletableFuture<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (ExecutionException e)
+        {
+            throw unwrap(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e)
+    {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null)
+        {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static void warmUpConnection(HttpClient client, URI baseUri)
+    {
+        try
+        {
+            var request = HttpRequest.newBuilder()
+                    .uri(baseUri)
+                    .timeout(DEFAULT_TIMEOUT)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        catch (InterruptedException e)
         {
-            requestCount.set(0);
-            httpClient = HttpClient.newHttpClient();
-            log.trace("Refreshed http client");
-            return true;
+            Thread.currentThread().interrupt();
         }
-        return false;
     }
 }
@@ -0,0 +1,140 @@
+package org.example.handy.v3;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.handy.v3.dto.HandyHspAddResponse;
+import org.example.handy.v3.dto.HspAddRequest;
+import org.example.handy.v3.dto.HspPoints;
+import org.example.handy.v3.dto.HspState;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Hand written hspAdd serialization into byte arrays and streaming response parsing (no reflection, no intermediate Strings)
+public final class HspAddJsonCodec
+{
+    private static final byte[] POINTS_START = "{\"points\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] POINT_TIME = "{\"t\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] POINT_POSITION = ",\"x\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FLUSH_TRUE_END = "],\"flush\":true}".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FLUSH_FALSE_END = "],\"flush\":false}".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_INT_LENGTH = 11; // "-2147483648"
+    private static final int MAX_POINT_LENGTH = POINT_TIME.length + MAX_INT_LENGTH + POINT_POSITION.length + MAX_INT_LENGTH + 2; // '}' and ','
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+
+    public HspAddJsonCodec(ObjectMapper objectMapper)
+    {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public static int maxRequestLength(int points)
+    {
+        return POINTS_START.length + points * MAX_POINT_LENGTH + FLUSH_FALSE_END.length;
+    }
+
+    public static int writeRequest(HspAddRequest request, byte[] target)
+    {
+        return writeRequest(HspPoints.of(request.points()), request.flush(), target);
+    }
+
+    // Target must have at least maxRequestLength(points) bytes, returns number of written bytes
+    public static int writeRequest(HspPoints points, boolean flush, byte[] target)
+    {
+        int position = put(target, 0, POINTS_START);
+        for (int i = 0; i < points.size(); i++)
+        {
+            if (i > 0)
+            {
+                target[position++] = ',';
+            }
+            position = put(target, position, POINT_TIME);
+            position = putInt(target, position, points.t(i));
+            position = put(target, position, POINT_POSITION);
+            position = putInt(target, position, points.x(i));
+            target[position++] = '}';
+        }
+        return put(target, position, flush ? FLUSH_TRUE_END : FLUSH_FALSE_END);
+    }
+
+    public HandyHspAddResponse readResponse(byte[] body) throws IOException
+    {
+        try (JsonParser parser = jsonFactory.createParser(body))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                return objectMapper.readValue(body, HandyHspAddResponse.class);
+            }
+            HspState state = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("result".equals(field) && value == JsonToken.START_OBJECT)
+                {
+                    state = readState(parser);
+                }
+                else if ("error".equals(field) && value != JsonToken.VALUE_NULL)
+                {
+                    return objectMapper.readValue(body, HandyHspAddResponse.class); // Rare path, full mapping of error
+                }
+                else
+                {
+                    parser.skipChildren();
+                }
+            }
+            return new HandyHspAddResponse(null, state);
+        }
+    }
+
+    private static HspState readState(JsonParser parser) throws IOException
+    {
+        int currentTime = 0;
+        Integer firstPointTime = null;
+        Integer lastPointTime = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field)
+            {
+                case "current_time" -> currentTime = parser.getValueAsInt();
+                case "first_point_time" -> firstPointTime = value == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                case "last_point_time" -> lastPointTime = value == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+        return new HspState(currentTime, firstPointTime, lastPointTime);
+    }
+
+    private static int put(byte[] target, int position, byte[] bytes)
+    {
+        System.arraycopy(bytes, 0, target, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static int putInt(byte[] target, int position, int value)
+    {
+        long remaining = value;
+        if (remaining < 0)
+        {
+            target[position++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long limit = 10; remaining >= limit && digits < 10; limit *= 10)
+        {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--)
+        {
+            target[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return position + digits;
+    }
+}
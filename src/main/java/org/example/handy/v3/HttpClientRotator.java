@@ -0,0 +1,159 @@
+package org.example.handy.v3;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.jfr.ClientRotationEvent;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Keeps a pre-warmed standby client (TCP + TLS + HTTP/2 handshake already done) and swaps it in atomically when server sends GOAWAY.
+// Number of requests served before GOAWAY is learned, so following connections are rotated just before server would close them.
+// Rotation never waits for handshake, active client keeps serving (and reconnects by itself if needed) until standby is ready.
+@Slf4j
+public class HttpClientRotator
+{
+    private static final int GOAWAY_MARGIN_REQUESTS = 5;
+    private static final String GOAWAY_MESSAGE = "GOAWAY";
+
+    private final Supplier<HttpClient> clientFactory;
+    private final Consumer<HttpClient> warmUpRequest;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private volatile HttpClient active;
+    private CompletableFuture<HttpClient> standby; // Guarded by this
+    private boolean rotationScheduled; // Guarded by this
+    private volatile int requestsPerConnection = Integer.MAX_VALUE;
+    private volatile long lastHandshakeMs;
+    private volatile long lastRotationMs;
+    private volatile long rotations;
+
+    public HttpClientRotator(Supplier<HttpClient> clientFactory, Consumer<HttpClient> warmUpRequest)
+    {
+        this.clientFactory = clientFactory;
+        this.warmUpRequest = warmUpRequest;
+        this.active = clientFactory.get();
+        synchronized (this)
+        {
+            this.standby = warmUpStandby();
+        }
+    }
+
+    public HttpClient client()
+    {
+        return active;
+    }
+
+    public void onRequestCompleted(HttpClient client)
+    {
+        if (client == active && activeRequests.incrementAndGet() >= requestsPerConnection - GOAWAY_MARGIN_REQUESTS)
+        {
+            rotate(client, "proactive");
+        }
+    }
+
+    public void onGoAway(HttpClient client)
+    {
+        if (client == active)
+        {
+            int served = activeRequests.get();
+            if (served < requestsPerConnection)
+            {
+                requestsPerConnection = Math.max(served, GOAWAY_MARGIN_REQUESTS + 1);
+                log.debug("Server closes connection after {} requests", requestsPerConnection);
+            }
+        }
+        rotate(client, "GOAWAY");
+    }
+
+    public static boolean isGoAway(Throwable e)
+    {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+        {
+            if (cause.getMessage() != null && cause.getMessage().contains(GOAWAY_MESSAGE))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long lastHandshakeMs()
+    {
+        return lastHandshakeMs;
+    }
+
+    public long lastRotationMs()
+    {
+        return lastRotationMs;
+    }
+
+    public long rotations()
+    {
+        return rotations;
+    }
+
+    // Called from response handling, so it must not block
+    private synchronized void rotate(HttpClient expected, String reason)
+    {
+        if (expected != active || rotationScheduled) // Already rotated or waiting for standby because of another request
+        {
+            return;
+        }
+        long start = System.nanoTime();
+        if (standby.isDone())
+        {
+            swap(expected, reason, true, start);
+            return;
+        }
+        rotationScheduled = true;
+        standby.thenAccept(ignored -> swap(expected, reason, false, start)); // Waiting for handshake in progress is still faster than starting a new one
+    }
+
+    private synchronized void swap(HttpClient expected, String reason, boolean wasStandbyReady, long start)
+    {
+        rotationScheduled = false;
+        if (expected != active)
+        {
+            return;
+        }
+        var event = new ClientRotationEvent();
+        event.begin();
+        HttpClient next = standby.join(); // Already completed
+        HttpClient previous = active;
+        active = next;
+        int served = activeRequests.getAndSet(0);
+        standby = warmUpStandby();
+        previous.shutdown(); // Lets in-flight requests finish
+        lastRotationMs = (System.nanoTime() - start) / 1_000_000;
+        rotations++;
+        log.trace("Rotated http client after {} requests (reason={}, took {} ms, standbyReady={})", served, reason, lastRotationMs, wasStandbyReady);
+        event.reason = reason;
+        event.servedRequests = served;
+        event.standbyReady = wasStandbyReady;
+        event.commit();
+    }
+
+    private CompletableFuture<HttpClient> warmUpStandby()
+    {
+        var future = new CompletableFuture<HttpClient>();
+        Thread.startVirtualThread(() ->
+        {
+            HttpClient client = clientFactory.get();
+            long start = System.nanoTime();
+            try
+            {
+                warmUpRequest.accept(client);
+                lastHandshakeMs = (System.nanoTime() - start) / 1_000_000;
+                log.trace("Warmed up standby http client in {} ms", lastHandshakeMs);
+            }
+            catch (Exception e)
+            {
+                log.debug("Could not warm up standby http client: {}", e.getMessage()); // Client still works, it will connect on 1st request
+            }
+            future.complete(client);
+        });
+        return future;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.handy.v3;
+
+import java.util.Arrays;
+
+// Sliding window of recent request latencies, used to decide when a request is slow enough to hedge
+public class LatencyTracker
+{
+    private final long[] latenciesMs;
+    private final long[] sortScratch;
+    private int nextSample;
+    private int samples;
+
+    public LatencyTracker(int windowSize)
+    {
+        this.latenciesMs = new long[windowSize];
+        this.sortScratch = new long[windowSize];
+    }
+
+    public synchronized void record(long latencyMs)
+    {
+        latenciesMs[nextSample] = latencyMs;
+        nextSample = (nextSample + 1) % latenciesMs.length;
+        samples = Math.min(samples + 1, latenciesMs.length);
+    }
+
+    public synchronized long quantile(float quantile, long defaultValue)
+    {
+        if (samples == 0)
+        {
+            return defaultValue;
+        }
+        System.arraycopy(latenciesMs, 0, sortScratch, 0, samples);
+        Arrays.sort(sortScratch, 0, samples);
+        return sortScratch[Math.min((int) (quantile * samples), samples - 1)];
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.handy.v3.dto;
+
+import java.util.List;
+
+// Read-only primitive view of HSP points, lets hot path serialize requests without HspPoint objects
+public interface HspPoints
+{
+    int size();
+
+    int t(int index);
+
+    int x(int index);
+
+    default boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    static HspPoints of(List<HspPoint> points)
+    {
+        return new HspPoints()
+        {
+            @Override
+            public int size()
+            {
+                return points.size();
+            }
+
+            @Override
+            public int t(int index)
+            {
+                return points.get(index).t();
+            }
+
+            @Override
+            public int x(int index)
+            {
+                return points.get(index).x();
+            }
+        };
+    }
+}
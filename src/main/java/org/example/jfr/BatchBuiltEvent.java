@@ -0,0 +1,25 @@
+package org.example.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.example.BatchBuilt")
+@Label("HSP Batch Built")
+@Description("Pending points drained, simplified and stripped of expired ones before sending")
+@Category({"HandyVRC", "HSP"})
+@StackTrace(false)
+public class BatchBuiltEvent extends Event
+{
+    @Label("Drained Points")
+    public int drainedPoints;
+
+    @Label("Points")
+    public int points;
+
+    @Label("Expired Points")
+    public int expiredPoints;
+
+    @Label("Age")
+    @Description("Time since oldest point of the batch was enqueued")
+    @Timespan(Timespan.MILLISECONDS)
+    public long age;
+}
@@ -0,0 +1,20 @@
+package org.example.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.example.ClientRotation")
+@Label("HTTP Client Rotation")
+@Category({"HandyVRC", "HTTP"})
+@StackTrace(false)
+public class ClientRotationEvent extends Event
+{
+    @Label("Reason")
+    public String reason;
+
+    @Label("Served Requests")
+    public int servedRequests;
+
+    @Label("Standby Ready")
+    @Description("Standby client finished its handshake before rotation")
+    public boolean standbyReady;
+}
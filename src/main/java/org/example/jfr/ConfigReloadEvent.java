@@ -0,0 +1,17 @@
+package org.example.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.example.ConfigReload")
+@Label("Config Reload")
+@Category({"HandyVRC", "Config"})
+@StackTrace(false)
+public class ConfigReloadEvent extends Event
+{
+    @Label("Path")
+    public String path;
+
+    @Label("Applied")
+    @Description("False when config file was invalid and previous config was kept")
+    public boolean applied;
+}
@@ -0,0 +1,39 @@
+package org.example.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Always-on flight recording (JFR "default" profile + HandyVRC events) keeping only the latest data, dumped to file on exit.
+// Can also be dumped while running: jcmd <pid> JFR.dump name=HandyVRC filename=<file>.jfr
+@Slf4j
+public final class ContinuousRecording
+{
+    private static final String RECORDING_NAME = "HandyVRC";
+
+    private ContinuousRecording()
+    {
+    }
+
+    public static void start(Path directory, Duration maxAge) throws IOException, ParseException
+    {
+        Files.createDirectories(directory);
+        String fileName = "handyvrc-%s.jfr".formatted(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        var recording = new Recording(Configuration.getConfiguration("default")); // Low overhead profile, custom events are enabled by default
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setDumpOnExit(true);
+        recording.setDestination(directory.resolve(fileName));
+        recording.start();
+        log.info("Flight recording started, last {} min will be saved to {} on exit", maxAge.toMinutes(), directory.resolve(fileName).toAbsolutePath());
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.example.Deadband")
+@Label("Point Deadband Decision")
+@Description("Position accepted as a new point or rejected by DEADBAND or ADAPTIVE_DEADBAND signal stage")
+@Category({"HandyVRC", "OSC"})
+@StackTrace(false)
+public class DeadbandEvent extends Event
+{
+    @Label("Position")
+    public int position;
+
+    @Label("Position Change")
+    public int positionChange;
+
+    @Label("Accepted")
+    public boolean accepted;
+}
@@ -0,0 +1,29 @@
+package org.example.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.example.HspAdd")
+@Label("HSP Add Request")
+@Description("hspAdd request from issue to completion, duration is the round trip time")
+@Category({"HandyVRC", "HSP"})
+@StackTrace(false)
+public class HspAddEvent extends Event
+{
+    @Label("Sequence")
+    public long sequence;
+
+    @Label("Points")
+    public int points;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Leeway")
+    @Description("First sent point time minus device current_time")
+    @Timespan(Timespan.MILLISECONDS)
+    public long leeway;
+
+    @Label("Points Offset")
+    @Timespan(Timespan.MILLISECONDS)
+    public long pointsOffset;
+}
@@ -0,0 +1,13 @@
+package org.example.jfr;
+
+import jdk.jfr.*;
+
+@Name("org.example.OscSample")
+@Label("OSC Sample Received")
+@Category({"HandyVRC", "OSC"})
+@StackTrace(false)
+public class OscSampleEvent extends Event
+{
+    @Label("Value")
+    public float value;
+}
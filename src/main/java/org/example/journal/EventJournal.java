@@ -0,0 +1,237 @@
+package org.example.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.handy.v3.dto.HspPoints;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Binary journal of hot path events. Producers claim a slot in a preallocated ring (lock-free, allocation-free) and a background
+// thread copies published records into a memory-mapped file, which is circular, so it keeps the latest events within fixed size.
+// Static methods are no-ops until journal is started. Read files with JournalDecoder.
+@Slf4j
+public final class EventJournal
+{
+    static final long MAGIC = 0x4856_5243_4A52_4E4CL; // "HVRCJRNL"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 32; // nanos(8) + type(4) + a(4) + b(4) + c(4) + d(8)
+    static final int WRITTEN_RECORDS_OFFSET = 40;
+    private static final int LONGS_PER_SLOT = 4;
+    private static final int MAX_FILE_SIZE_MB = 1024; // Single mapping is limited to 2 GB
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static volatile EventJournal active;
+
+    private final long[] slots; // nanos, type << 32 | a, b << 32 | c, d
+    private final long[] published; // Sequence + 1 of record stored in slot, written with release semantics
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer file;
+    private final long fileCapacityRecords;
+    private long writtenRecords;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private EventJournal(Path path, int ringCapacity, long fileCapacityRecords) throws IOException
+    {
+        int capacity = Integer.highestOneBit(Math.max(ringCapacity, 2));
+        this.slots = new long[capacity * LONGS_PER_SLOT];
+        this.published = new long[capacity];
+        this.mask = capacity - 1;
+        this.fileCapacityRecords = fileCapacityRecords;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.file = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + fileCapacityRecords * RECORD_BYTES);
+        file.putLong(0, MAGIC)
+                .putInt(8, VERSION)
+                .putInt(12, RECORD_BYTES)
+                .putLong(16, fileCapacityRecords)
+                .putLong(24, System.nanoTime())
+                .putLong(32, System.currentTimeMillis()) // Maps nano timestamps to wall clock
+                .putLong(WRITTEN_RECORDS_OFFSET, 0);
+        this.writerThread = new Thread(this::writeInLoop, "event-journal-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    public static void start(Path path, int ringCapacity, int fileSizeMb) throws IOException
+    {
+        int sizeMb = Math.clamp(fileSizeMb, 1, MAX_FILE_SIZE_MB);
+        long fileCapacityRecords = ((long) sizeMb << 20) / RECORD_BYTES;
+        var journal = new EventJournal(path, ringCapacity, fileCapacityRecords);
+        journal.writerThread.start();
+        active = journal;
+        log.info("Recording event journal to {} ({} MB)", path.toAbsolutePath(), sizeMb);
+    }
+
+    public static void stop()
+    {
+        EventJournal journal = active;
+        if (journal == null)
+        {
+            return;
+        }
+        active = null;
+        journal.close();
+    }
+
+    public static boolean isActive()
+    {
+        return active != null;
+    }
+
+    public static void sample(float value, int position, int pointTime, boolean accepted)
+    {
+        EventJournal journal = active;
+        if (journal != null)
+        {
+            journal.append(JournalEventType.SAMPLE, Float.floatToRawIntBits(value), position, pointTime, accepted ? 1 : 0);
+        }
+    }
+
+    public static void batch(long sequence, HspPoints points)
+    {
+        EventJournal journal = active;
+        if (journal == null || points.isEmpty())
+        {
+            return;
+        }
+        journal.append(JournalEventType.BATCH, points.size(), points.t(0), points.t(points.size() - 1), sequence);
+        for (int i = 0; i < points.size(); i++)
+        {
+            journal.append(JournalEventType.POINT, points.t(i), points.x(i), i, sequence);
+        }
+    }
+
+    public static void response(long sequence, int currentTime, Integer firstPointTime, Integer lastPointTime)
+    {
+        EventJournal journal = active;
+        if (journal != null)
+        {
+            journal.append(JournalEventType.RESPONSE, currentTime, orMin(firstPointTime), orMin(lastPointTime), sequence);
+        }
+    }
+
+    public static void rtt(long sequence, long rttNanos, int leewayMs, int pointsOffsetMs)
+    {
+        EventJournal journal = active;
+        if (journal != null)
+        {
+            journal.append(JournalEventType.RTT, (int) TimeUnit.NANOSECONDS.toMicros(rttNanos), leewayMs, pointsOffsetMs, sequence);
+        }
+    }
+
+    public static void warning(JournalWarning warning, int value1, int value2, long value3)
+    {
+        EventJournal journal = active;
+        if (journal != null)
+        {
+            journal.append(JournalEventType.WARNING, warning.ordinal(), value1, value2, value3);
+        }
+    }
+
+    private static int orMin(Integer value)
+    {
+        return value == null ? Integer.MIN_VALUE : value;
+    }
+
+    private void append(JournalEventType type, int a, int b, int c, long d)
+    {
+        long sequence;
+        do
+        {
+            sequence = claimed.get();
+            if (sequence - consumed > mask) // Writer fell behind, losing newest events is better than blocking hot path
+            {
+                droppedRecords.incrementAndGet();
+                return;
+            }
+        }
+        while (!claimed.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & mask;
+        int index = slot * LONGS_PER_SLOT;
+        slots[index] = System.nanoTime();
+        slots[index + 1] = (long) type.ordinal() << 32 | (a & 0xFFFF_FFFFL);
+        slots[index + 2] = (long) b << 32 | (c & 0xFFFF_FFFFL);
+        slots[index + 3] = d;
+        PUBLISHED.setRelease(published, slot, sequence + 1);
+    }
+
+    private void writeInLoop()
+    {
+        while (running || claimed.get() != consumed)
+        {
+            if (!drainPublished())
+            {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private boolean drainPublished()
+    {
+        long next = consumed;
+        long drained = 0;
+        while (true)
+        {
+            int slot = (int) next & mask;
+            if ((long) PUBLISHED.getAcquire(published, slot) != next + 1)
+            {
+                break;
+            }
+            int index = slot * LONGS_PER_SLOT;
+            int position = (int) (HEADER_BYTES + (writtenRecords % fileCapacityRecords) * RECORD_BYTES);
+            file.putLong(position, slots[index])
+                    .putInt(position + 8, (int) (slots[index + 1] >>> 32))
+                    .putInt(position + 12, (int) slots[index + 1])
+                    .putInt(position + 16, (int) (slots[index + 2] >>> 32))
+                    .putInt(position + 20, (int) slots[index + 2])
+                    .putLong(position + 24, slots[index + 3]);
+            writtenRecords++;
+            next++;
+            drained++;
+            consumed = next; // Frees slot for producers
+        }
+        if (drained > 0)
+        {
+            file.putLong(WRITTEN_RECORDS_OFFSET, writtenRecords);
+        }
+        return drained > 0;
+    }
+
+    private void close()
+    {
+        running = false;
+        try
+        {
+            writerThread.join(TimeUnit.SECONDS.toMillis(1));
+            file.force();
+            fileChannel.close();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (IOException e)
+        {
+            log.error("Could not close event journal", e);
+        }
+        if (droppedRecords.get() > 0)
+        {
+            log.warn("Event journal writer fell behind, {} events were not recorded", droppedRecords.get());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// Prints event journal as text, one event per line, oldest first.
+// Usage: java -cp HandyVRC-OSC-0.1.jar org.example.journal.JournalDecoder journal/events-<timestamp>.bin [> events.txt]
+public class JournalDecoder
+{
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 1)
+        {
+            System.err.println("Usage: JournalDecoder <journal file>");
+            System.exit(1);
+        }
+        decode(Path.of(args[0]), System.out);
+    }
+
+    public static void decode(Path path, PrintStream out) throws IOException
+    {
+        ByteBuffer journal;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (journal.getLong(0) != EventJournal.MAGIC || journal.getInt(8) != EventJournal.VERSION)
+        {
+            throw new IOException("Not an event journal (or unsupported version): " + path);
+        }
+        int recordBytes = journal.getInt(12);
+        long capacity = journal.getLong(16);
+        long startNanos = journal.getLong(24);
+        long startEpochMillis = journal.getLong(32);
+        long written = journal.getLong(EventJournal.WRITTEN_RECORDS_OFFSET);
+        long first = Math.max(written - capacity, 0); // Older records were overwritten
+        if (first > 0)
+        {
+            out.printf("# %d oldest events were overwritten%n", first);
+        }
+        for (long record = first; record < written; record++)
+        {
+            int position = (int) (EventJournal.HEADER_BYTES + (record % capacity) * recordBytes);
+            out.println(format(journal, position, startNanos, startEpochMillis));
+        }
+    }
+
+    private static String format(ByteBuffer journal, int position, long startNanos, long startEpochMillis)
+    {
+        long nanos = journal.getLong(position);
+        int typeCode = journal.getInt(position + 8);
+        int a = journal.getInt(position + 12);
+        int b = journal.getInt(position + 16);
+        int c = journal.getInt(position + 20);
+        long d = journal.getLong(position + 24);
+        long sinceStartNanos = nanos - startNanos;
+        String time = TIME_FORMAT.format(Instant.ofEpochMilli(startEpochMillis + sinceStartNanos / 1_000_000));
+        JournalEventType type = JournalEventType.ofCode(typeCode);
+        if (type == null)
+        {
+            return "%s %+.6f UNKNOWN(%d) %d %d %d %d".formatted(time, sinceStartNanos / 1e9, typeCode, a, b, c, d);
+        }
+        String firstValue = switch (type)
+        {
+            case SAMPLE -> Float.toString(Float.intBitsToFloat(a));
+            case WARNING -> String.valueOf(JournalWarning.ofCode(a));
+            default -> Integer.toString(a);
+        };
+        return "%s %+.6f %-8s %s=%s %s=%s %s=%s %s=%d".formatted(time, sinceStartNanos / 1e9, type,
+                type.fieldName(0), firstValue, type.fieldName(1), value(b), type.fieldName(2), value(c), type.fieldName(3), d);
+    }
+
+    private static String value(int value)
+    {
+        return value == Integer.MIN_VALUE ? "null" : Integer.toString(value);
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.journal;
+
+// Every record has 3 int fields (a, b, c) and 1 long field (d), names are used by JournalDecoder only
+public enum JournalEventType
+{
+    SAMPLE("value", "position", "pointTime", "accepted"),
+    BATCH("points", "firstPointTime", "lastPointTime", "sequence"),
+    POINT("t", "x", "index", "sequence"),
+    RESPONSE("currentTime", "firstPointTime", "lastPointTime", "sequence"),
+    RTT("rttMicros", "leewayMs", "pointsOffsetMs", "sequence"),
+    WARNING("warning", "value1", "value2", "value3");
+
+    private final String[] fieldNames;
+
+    JournalEventType(String... fieldNames)
+    {
+        this.fieldNames = fieldNames;
+    }
+
+    public String fieldName(int index)
+    {
+        return fieldNames[index];
+    }
+
+    public static JournalEventType ofCode(int code)
+    {
+        JournalEventType[] types = values();
+        return code >= 0 && code < types.length ? types[code] : null;
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.journal;
+
+public enum JournalWarning
+{
+    PENDING_BUFFER_FULL,
+    POINTS_EXPIRED,
+    POINTS_SKIPPED,
+    REQUEST_FAILED,
+    REQUEST_TIMED_OUT,
+    GOAWAY,
+    ERROR_RESPONSE;
+
+    public static JournalWarning ofCode(int code)
+    {
+        JournalWarning[] warnings = values();
+        return code >= 0 && code < warnings.length ? warnings[code] : null;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// HDR-style log-linear histogram of non-negative values: exact below 32, above that 16 linear sub-buckets per power of two
+// (max relative error ~6%). Recording is lock-free and allocation-free, so it can be used on OSC and sender threads.
+public final class Histogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value)
+    {
+        long clamped = Math.max(value, 0);
+        counts.incrementAndGet(bucketIndex(clamped));
+        totalCount.increment();
+        sum.add(clamped);
+        if (clamped > max.get())
+        {
+            max.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    public long count()
+    {
+        return totalCount.sum();
+    }
+
+    public long sum()
+    {
+        return sum.sum();
+    }
+
+    public long max()
+    {
+        return max.get();
+    }
+
+    // Bucket is counted when its highest value is <= limit, so the result may be off by one bucket width
+    public long countAtOrBelow(long limit)
+    {
+        long result = 0;
+        for (int i = 0; i < BUCKETS && bucketUpperBound(i) <= limit; i++)
+        {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    public long valueAtQuantile(double quantile)
+    {
+        long total = count();
+        if (total == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(quantile * total), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += counts.get(i);
+            if (seen >= rank)
+            {
+                return Math.min(bucketUpperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    static int bucketIndex(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long bucketUpperBound(int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long subBucket = index - shift * HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process wide latency histograms and point counters of the OSC -> HSP pipeline, exported in Prometheus text format
+public final class Metrics
+{
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long MILLIS_PER_SECOND = TimeUnit.SECONDS.toMillis(1);
+    private static final long[] NANOS_BUCKETS = {1_000, 2_000, 5_000, 10_000, 20_000, 50_000, 100_000, 200_000, 500_000, 1_000_000, 2_000_000, 5_000_000, 10_000_000};
+    private static final long[] MILLIS_BUCKETS = {5, 10, 20, 50, 100, 150, 200, 300, 500, 750, 1000, 2000, 5000};
+
+    public static final Histogram OSC_TO_ENQUEUE_NANOS = new Histogram();
+    public static final Histogram ENQUEUE_TO_SEND_MS = new Histogram();
+    public static final Histogram HSP_ADD_RTT_MS = new Histogram();
+    public static final Histogram LEEWAY_MS = new Histogram(); // Non-negative leeway only, see LATENESS_MS
+    public static final Histogram LATENESS_MS = new Histogram();
+    public static final LongAdder SKIPPED_POINTS = new LongAdder();
+    public static final LongAdder DROPPED_POINTS = new LongAdder();
+    public static final LongAdder DEDUPLICATED_POINTS = new LongAdder();
+    public static final LongAdder IGNORED_SOURCE_SAMPLES = new LongAdder();
+    public static final LongAdder EARLY_FLUSHES = new LongAdder();
+    public static final LongAdder STARVATION_RISKS = new LongAdder();
+    public static final LongAdder HSP_ADD_REQUESTS = new LongAdder();
+    public static final LongAdder HSP_ADD_FAILURES = new LongAdder();
+
+    private Metrics()
+    {
+    }
+
+    public static String toPrometheusText()
+    {
+        var text = new StringBuilder(4096);
+        histogram(text, "handyvrc_osc_to_enqueue_seconds", "OSC packet received to point enqueued for sending", OSC_TO_ENQUEUE_NANOS, NANOS_BUCKETS, NANOS_PER_SECOND);
+        histogram(text, "handyvrc_enqueue_to_send_seconds", "Oldest point of a batch enqueued to hspAdd request submitted", ENQUEUE_TO_SEND_MS, MILLIS_BUCKETS, MILLIS_PER_SECOND);
+        histogram(text, "handyvrc_hsp_add_rtt_seconds", "hspAdd request round trip time", HSP_ADD_RTT_MS, MILLIS_BUCKETS, MILLIS_PER_SECOND);
+        histogram(text, "handyvrc_leeway_seconds", "First sent point time minus device current_time, for batches that were not late", LEEWAY_MS, MILLIS_BUCKETS, MILLIS_PER_SECOND);
+        histogram(text, "handyvrc_lateness_seconds", "Device current_time minus first sent point time, for batches whose first point was already late (negative leeway)", LATENESS_MS, MILLIS_BUCKETS, MILLIS_PER_SECOND);
+        counter(text, "handyvrc_points_skipped_total", "Points that were already behind device current_time when response was received", SKIPPED_POINTS);
+        counter(text, "handyvrc_points_dropped_total", "Points dropped before reaching the device (full buffer, expired, failed request)", DROPPED_POINTS);
+        counter(text, "handyvrc_points_deduplicated_total", "OSC values not sent because position change was below deadband threshold", DEDUPLICATED_POINTS);
+        counter(text, "handyvrc_osc_ignored_source_samples_total", "OSC values not used because other address matched by avatarParameter wildcard was selected", IGNORED_SOURCE_SAMPLES);
+        counter(text, "handyvrc_hsp_add_requests_total", "hspAdd requests sent", HSP_ADD_REQUESTS);
+        counter(text, "handyvrc_hsp_add_early_flushes_total", "hspAdd requests sent before sendMessageEveryMs passed because of direction change or jump", EARLY_FLUSHES);
+        counter(text, "handyvrc_hsp_add_starvation_risks_total", "hspAdd requests expected to reach the device shortly before their first point is played", STARVATION_RISKS);
+        counter(text, "handyvrc_hsp_add_failures_total", "hspAdd requests that failed or timed out", HSP_ADD_FAILURES);
+        return text.toString();
+    }
+
+    private static void histogram(StringBuilder text, String name, String help, Histogram histogram, long[] buckets, long unitsPerSecond)
+    {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" histogram\n");
+        long count = histogram.count(); // Read before buckets, so +Inf is never lower than a bucket recorded concurrently
+        for (long bucket : buckets)
+        {
+            text.append(name).append("_bucket{le=\"").append(seconds(bucket, unitsPerSecond)).append("\"} ")
+                    .append(Math.min(histogram.countAtOrBelow(bucket), count)).append('\n');
+        }
+        text.append(name).append("_bucket{le=\"+Inf\"} ").append(count).append('\n');
+        text.append(name).append("_sum ").append(seconds(histogram.sum(), unitsPerSecond)).append('\n');
+        text.append(name).append("_count ").append(count).append('\n');
+    }
+
+    private static void counter(StringBuilder text, String name, String help, LongAdder counter)
+    {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(" counter\n");
+        text.append(name).append(' ').append(counter.sum()).append('\n');
+    }
+
+    private static String seconds(long value, long unitsPerSecond)
+    {
+        return Double.toString((double) value / unitsPerSecond);
+    }
+}
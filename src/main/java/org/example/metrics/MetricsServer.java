@@ -0,0 +1,46 @@
+package org.example.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+// Serves Metrics on http://localhost:<port>/metrics for Prometheus (or curl) during sessions
+@Slf4j
+public class MetricsServer
+{
+    private static final String METRICS_PATH = "/metrics";
+    private final HttpServer server;
+
+    public MetricsServer(int port) throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.server.createContext(METRICS_PATH, MetricsServer::handleMetrics);
+    }
+
+    public void start()
+    {
+        server.start(); // Default executor handles requests on a single background thread, scrapes are rare
+        log.info("Metrics available on http://localhost:{}{}", server.getAddress().getPort(), METRICS_PATH);
+    }
+
+    public void stop()
+    {
+        server.stop(0);
+    }
+
+    private static void handleMetrics(HttpExchange exchange) throws IOException
+    {
+        byte[] body = Metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody())
+        {
+            responseBody.write(body);
+        }
+    }
+}
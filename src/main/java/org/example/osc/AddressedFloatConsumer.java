@@ -0,0 +1,10 @@
+package org.example.osc;
+
+import java.nio.ByteBuffer;
+
+// Receives concrete address of the message too, as bytes in receive buffer
+@FunctionalInterface
+public interface AddressedFloatConsumer
+{
+    void accept(ByteBuffer packet, int addressStart, int addressEnd, float value, long sampleNanos);
+}
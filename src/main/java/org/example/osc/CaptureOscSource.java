@@ -0,0 +1,48 @@
+package org.example.osc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads packets recorded by OscCapture
+public class CaptureOscSource implements OscPacketSource
+{
+    private final ByteBuffer capture;
+    private final int writtenBytes;
+    private int position = OscCapture.HEADER_BYTES;
+    private long firstPacketNanos;
+
+    public CaptureOscSource(Path path) throws IOException
+    {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            capture = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (capture.getLong(0) != OscCapture.MAGIC || capture.getInt(8) != OscCapture.VERSION)
+        {
+            throw new IOException("Not an OSC capture (or unsupported version): " + path);
+        }
+        writtenBytes = (int) capture.getLong(OscCapture.WRITTEN_BYTES_OFFSET);
+    }
+
+    @Override
+    public long next(ByteBuffer packet)
+    {
+        if (position + OscCapture.RECORD_HEADER_BYTES > writtenBytes)
+        {
+            return END;
+        }
+        long receivedNanos = capture.getLong(position);
+        int length = capture.getInt(position + 8);
+        if (position == OscCapture.HEADER_BYTES)
+        {
+            firstPacketNanos = receivedNanos;
+        }
+        packet.clear();
+        packet.put(0, capture, position + OscCapture.RECORD_HEADER_BYTES, length).limit(length);
+        position += OscCapture.RECORD_HEADER_BYTES + OscCapture.align(length);
+        return receivedNanos - firstPacketNanos;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.osc;
+
+@FunctionalInterface
+public interface FloatConsumer
+{
+    // sampleNanos (System.nanoTime based) is taken from OSC bundle timetag or, without one, from packet receive time
+    void accept(float value, long sampleNanos);
+}
@@ -0,0 +1,219 @@
+package org.example.osc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.metrics.Metrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+
+// Allocation-free OSC receiver: decodes packets in place from a reused direct buffer and delivers primitive floats
+@Slf4j
+public class NioOscReceiver
+{
+    private static final int MAX_PACKET_SIZE = 65_507; // Max UDP payload
+    private static final int RECEIVE_BUFFER_SIZE = 1 << 20;
+    private static final byte[] BUNDLE_PREFIX = {'#', 'b', 'u', 'n', 'd', 'l', 'e', 0};
+
+    private final DatagramChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE); // OSC is big-endian, same as ByteBuffer default
+    private volatile Registration[] registrations = new Registration[0];
+    private final TimetagClock timetagClock = new TimetagClock(); // Accessed by receiver thread only
+
+    private record Registration(OscAddressPattern pattern, AddressedFloatConsumer consumer)
+    {
+    }
+
+    public NioOscReceiver(int port) throws IOException
+    {
+        this.channel = DatagramChannel.open();
+        this.channel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER_SIZE);
+        this.channel.bind(new InetSocketAddress(port));
+        this.channel.configureBlocking(true);
+    }
+
+    public void startListening()
+    {
+        var thread = new Thread(this::receiveInLoop, "osc-nio-receiver");
+        thread.setDaemon(false);
+        thread.start();
+    }
+
+    public void stopListening() throws IOException
+    {
+        channel.close();
+    }
+
+    public void addListener(String messageSelector, FloatConsumer consumer)
+    {
+        addListener(messageSelector, (packet, addressStart, addressEnd, value, sampleNanos) -> consumer.accept(value, sampleNanos));
+    }
+
+    public synchronized void addListener(String messageSelector, AddressedFloatConsumer consumer)
+    {
+        Registration[] updated = Arrays.copyOf(registrations, registrations.length + 1);
+        updated[registrations.length] = new Registration(new OscAddressPattern(messageSelector), consumer);
+        registrations = updated;
+    }
+
+    private void receiveInLoop()
+    {
+        while (channel.isOpen())
+        {
+            try
+            {
+                buffer.clear();
+                if (channel.receive(buffer) == null) // Only possible in non-blocking mode, kept as a guard
+                {
+                    continue;
+                }
+                long receivedNanos = System.nanoTime();
+                OscCapture.packet(receivedNanos, buffer, 0, buffer.position());
+                if (dispatchPacket(buffer, 0, buffer.position(), receivedNanos) > 0)
+                {
+                    Metrics.OSC_TO_ENQUEUE_NANOS.record(System.nanoTime() - receivedNanos);
+                }
+            }
+            catch (ClosedChannelException e)
+            {
+                return;
+            }
+            catch (Exception e)
+            {
+                log.error("Exception during osc packet handling!", e);
+            }
+        }
+    }
+
+    // Returns number of values delivered to listeners
+    int dispatchPacket(ByteBuffer packet, int start, int end, long sampleNanos)
+    {
+        if (isBundle(packet, start, end))
+        {
+            return dispatchBundle(packet, start, end, sampleNanos);
+        }
+        return dispatchMessage(packet, start, end, sampleNanos);
+    }
+
+    private boolean isBundle(ByteBuffer packet, int start, int end)
+    {
+        if (end - start < BUNDLE_PREFIX.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < BUNDLE_PREFIX.length; i++)
+        {
+            if (packet.get(start + i) != BUNDLE_PREFIX[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int dispatchBundle(ByteBuffer packet, int start, int end, long receivedNanos)
+    {
+        if (end - start < BUNDLE_PREFIX.length + Long.BYTES)
+        {
+            return 0;
+        }
+        long sampleNanos = timetagClock.toLocalNanos(packet.getLong(start + BUNDLE_PREFIX.length), receivedNanos);
+        int delivered = 0;
+        int elementStart = start + BUNDLE_PREFIX.length + Long.BYTES;
+        while (elementStart + Integer.BYTES <= end)
+        {
+            int elementSize = packet.getInt(elementStart);
+            elementStart += Integer.BYTES;
+            if (elementSize <= 0 || elementStart + elementSize > end)
+            {
+                log.error("Malformed OSC bundle element (size={})", elementSize);
+                return delivered;
+            }
+            delivered += dispatchPacket(packet, elementStart, elementStart + elementSize, sampleNanos);
+            elementStart += elementSize;
+        }
+        return delivered;
+    }
+
+    private int dispatchMessage(ByteBuffer packet, int start, int end, long sampleNanos)
+    {
+        int addressEnd = indexOfZero(packet, start, end);
+        if (addressEnd < 0)
+        {
+            return 0;
+        }
+        int delivered = 0;
+        Registration[] current = registrations;
+        for (Registration registration : current)
+        {
+            if (registration.pattern().matches(packet, start, addressEnd) && decodeFirstArgument(packet, start, addressEnd, end, registration.consumer(), sampleNanos))
+            {
+                delivered++;
+            }
+        }
+        return delivered;
+    }
+
+    private boolean decodeFirstArgument(ByteBuffer packet, int start, int addressEnd, int end, AddressedFloatConsumer consumer, long sampleNanos)
+    {
+        int typeTagsStart = align(addressEnd + 1);
+        if (typeTagsStart + 1 >= end || packet.get(typeTagsStart) != ',')
+        {
+            return false;
+        }
+        int typeTagsEnd = indexOfZero(packet, typeTagsStart, end);
+        if (typeTagsEnd < 0)
+        {
+            return false;
+        }
+        int argumentStart = align(typeTagsEnd + 1);
+        switch (packet.get(typeTagsStart + 1))
+        {
+            case 'f' ->
+            {
+                if (argumentStart + Float.BYTES > end)
+                {
+                    return false;
+                }
+                consumer.accept(packet, start, addressEnd, packet.getFloat(argumentStart), sampleNanos);
+            }
+            case 'i' ->
+            {
+                if (argumentStart + Integer.BYTES > end)
+                {
+                    return false;
+                }
+                consumer.accept(packet, start, addressEnd, packet.getInt(argumentStart), sampleNanos);
+            }
+            case 'T' -> consumer.accept(packet, start, addressEnd, 1.f, sampleNanos);
+            case 'F' -> consumer.accept(packet, start, addressEnd, 0.f, sampleNanos);
+            default ->
+            {
+                log.trace("Unsupported OSC argument type, ignoring message");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfZero(ByteBuffer packet, int start, int end)
+    {
+        for (int i = start; i < end; i++)
+        {
+            if (packet.get(i) == 0)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int align(int index)
+    {
+        return (index + 3) & ~3;
+    }
+}
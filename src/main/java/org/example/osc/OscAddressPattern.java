@@ -0,0 +1,160 @@
+package org.example.osc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Matches OSC addresses directly in the receive buffer, supports '*' (within one address part), '?', '[a-z]' / '[!abc]' and '{foo,bar}'
+public final class OscAddressPattern
+{
+    private static final byte ANY_SEQUENCE = '*';
+    private static final byte ANY_CHAR = '?';
+    private static final byte CLASS_START = '[';
+    private static final byte CLASS_END = ']';
+    private static final byte CLASS_NEGATION = '!';
+    private static final byte CLASS_RANGE = '-';
+    private static final byte ALTERNATIVES_START = '{';
+    private static final byte ALTERNATIVES_END = '}';
+    private static final byte ALTERNATIVES_SEPARATOR = ',';
+    private static final byte PART_SEPARATOR = '/';
+
+    private final byte[] pattern;
+
+    public OscAddressPattern(String pattern)
+    {
+        this.pattern = pattern.getBytes(StandardCharsets.US_ASCII);
+        for (int p = 0; p < this.pattern.length; p++)
+        {
+            if ((this.pattern[p] == CLASS_START && indexOf(CLASS_END, p + 1) < 0)
+                    || (this.pattern[p] == ALTERNATIVES_START && indexOf(ALTERNATIVES_END, p + 1) < 0))
+            {
+                throw new IllegalArgumentException("Unterminated '%c' in OSC address pattern '%s'".formatted((char) this.pattern[p], pattern));
+            }
+        }
+    }
+
+    public boolean matches(ByteBuffer buffer, int start, int end)
+    {
+        return matches(buffer, 0, start, end);
+    }
+
+    // Recursion only for '*' and '{}', so depth is limited by number of them in pattern
+    private boolean matches(ByteBuffer buffer, int p, int a, int end)
+    {
+        while (p < pattern.length)
+        {
+            byte token = pattern[p];
+            if (token == ANY_SEQUENCE)
+            {
+                for (int next = a; ; next++) // Shortest match first, never crosses part separator
+                {
+                    if (matches(buffer, p + 1, next, end))
+                    {
+                        return true;
+                    }
+                    if (next == end || buffer.get(next) == PART_SEPARATOR)
+                    {
+                        return false;
+                    }
+                }
+            }
+            if (token == ALTERNATIVES_START)
+            {
+                return matchesAlternative(buffer, p, a, end);
+            }
+            if (a == end)
+            {
+                return false;
+            }
+            byte c = buffer.get(a);
+            if (token == CLASS_START)
+            {
+                int classEnd = indexOf(CLASS_END, p + 1);
+                if (!matchesClass(p + 1, classEnd, c))
+                {
+                    return false;
+                }
+                p = classEnd + 1;
+            }
+            else if (token == ANY_CHAR ? c == PART_SEPARATOR : c != token)
+            {
+                return false;
+            }
+            else
+            {
+                p++;
+            }
+            a++;
+        }
+        return a == end;
+    }
+
+    private boolean matchesAlternative(ByteBuffer buffer, int p, int a, int end)
+    {
+        int alternativesEnd = indexOf(ALTERNATIVES_END, p + 1);
+        int alternativeStart = p + 1;
+        while (alternativeStart <= alternativesEnd)
+        {
+            int alternativeEnd = alternativeStart;
+            while (alternativeEnd < alternativesEnd && pattern[alternativeEnd] != ALTERNATIVES_SEPARATOR)
+            {
+                alternativeEnd++;
+            }
+            int length = alternativeEnd - alternativeStart;
+            if (a + length <= end && regionMatches(buffer, a, alternativeStart, length) && matches(buffer, alternativesEnd + 1, a + length, end))
+            {
+                return true;
+            }
+            alternativeStart = alternativeEnd + 1;
+        }
+        return false;
+    }
+
+    private boolean matchesClass(int classStart, int classEnd, byte c)
+    {
+        boolean negated = classStart < classEnd && pattern[classStart] == CLASS_NEGATION;
+        boolean found = false;
+        for (int p = negated ? classStart + 1 : classStart; p < classEnd && !found; p++)
+        {
+            if (p + 2 < classEnd && pattern[p + 1] == CLASS_RANGE)
+            {
+                found = c >= pattern[p] && c <= pattern[p + 2];
+                p += 2;
+            }
+            else
+            {
+                found = c == pattern[p];
+            }
+        }
+        return found != negated;
+    }
+
+    private boolean regionMatches(ByteBuffer buffer, int a, int p, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer.get(a + i) != pattern[p + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte token, int from)
+    {
+        for (int p = from; p < pattern.length; p++)
+        {
+            if (pattern[p] == token)
+            {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(pattern, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.osc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Append-only capture of raw OSC packets with their receive time, stored in a memory-mapped file of fixed size.
+// Capturing stops when file is full. Static methods are no-ops until capture is started. Replay with OscReplay.
+@Slf4j
+public final class OscCapture
+{
+    static final long MAGIC = 0x4856_5243_4F53_4343L; // "HVRCOSCC"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_HEADER_BYTES = 12; // nanos(8) + length(4), followed by packet padded to 4 bytes
+    static final int WRITTEN_BYTES_OFFSET = 32;
+    private static final int MAX_FILE_SIZE_MB = 1024; // Single mapping is limited to 2 GB
+
+    private static volatile OscCapture active;
+
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer file;
+    private int position = HEADER_BYTES; // Guarded by this
+    private long packets;
+    private long droppedPackets;
+
+    private OscCapture(Path path, int sizeBytes) throws IOException
+    {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.file = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+        file.putLong(0, MAGIC)
+                .putInt(8, VERSION)
+                .putLong(16, System.nanoTime())
+                .putLong(24, System.currentTimeMillis()) // Maps nano timestamps to wall clock
+                .putLong(WRITTEN_BYTES_OFFSET, HEADER_BYTES);
+    }
+
+    public static void start(Path path, int fileSizeMb) throws IOException
+    {
+        int sizeMb = Math.clamp(fileSizeMb, 1, MAX_FILE_SIZE_MB);
+        active = new OscCapture(path, sizeMb << 20);
+        log.info("Capturing OSC packets to {} ({} MB)", path.toAbsolutePath(), sizeMb);
+    }
+
+    public static void stop()
+    {
+        OscCapture capture = active;
+        if (capture == null)
+        {
+            return;
+        }
+        active = null;
+        capture.close();
+    }
+
+    public static void packet(long receivedNanos, ByteBuffer packet, int start, int end)
+    {
+        OscCapture capture = active;
+        if (capture != null)
+        {
+            capture.append(receivedNanos, packet, start, end);
+        }
+    }
+
+    // Receiver thread is replaced when OSC settings are reloaded, so two threads can append for a moment
+    private synchronized void append(long receivedNanos, ByteBuffer packet, int start, int end)
+    {
+        int length = end - start;
+        int recordBytes = RECORD_HEADER_BYTES + align(length);
+        if (position + recordBytes > file.capacity())
+        {
+            if (droppedPackets++ == 0)
+            {
+                log.warn("OSC capture file is full, following packets are not captured");
+            }
+            return;
+        }
+        file.putLong(position, receivedNanos)
+                .putInt(position + 8, length)
+                .put(position + RECORD_HEADER_BYTES, packet, start, length);
+        position += recordBytes;
+        packets++;
+        file.putLong(WRITTEN_BYTES_OFFSET, position); // Readable even when app is killed
+    }
+
+    static int align(int length)
+    {
+        return (length + 3) & ~3;
+    }
+
+    private synchronized void close()
+    {
+        try
+        {
+            file.force();
+            fileChannel.close();
+        }
+        catch (IOException e)
+        {
+            log.error("Could not close OSC capture", e);
+        }
+        log.info("Captured {} OSC packets ({} not captured because file was full)", packets, droppedPackets);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.osc;
+
+public enum OscEngine
+{
+    JAVAOSC,
+    NIO
+}
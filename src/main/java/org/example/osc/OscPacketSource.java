@@ -0,0 +1,13 @@
+package org.example.osc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Source of OSC packets for replay, packets are written into a reused buffer
+public interface OscPacketSource
+{
+    long END = -1;
+
+    // Writes next packet from index 0 to limit of given buffer. Returns its time in nanos since first packet or END when there are no more packets.
+    long next(ByteBuffer packet) throws IOException;
+}
@@ -0,0 +1,119 @@
+package org.example.osc;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Sends OSC capture or generated messages over UDP to running app, so they go through the same listener path as VRChat messages.
+// Usage: java -cp HandyVRC-OSC-0.1.jar org.example.osc.OscReplay <capture file | SINE | NOISE | BURST> port=9001 speed=1
+//        (speed: 1 = real time, N = N times faster, 0 = as fast as possible)
+//        generator options: address=/avatar/parameters/OGB/Orf/Replay/PenOthersNewRoot rateHz=60 strokeHz=1 burstSize=10 burstGapMs=300 durationS=60
+@Slf4j
+public class OscReplay
+{
+    private static final int MAX_PACKET_SIZE = 65_507; // Max UDP payload
+    private static final long SPIN_BELOW_NANOS = TimeUnit.MILLISECONDS.toNanos(1); // parkNanos is not precise enough for the last millisecond
+
+    @FunctionalInterface
+    public interface PacketSink
+    {
+        void accept(ByteBuffer packet) throws IOException;
+    }
+
+    public record Result(long packets, long durationNanos, long maxLateNanos)
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 1)
+        {
+            System.err.println("Usage: OscReplay <capture file | SINE | NOISE | BURST> [key=value...]");
+            System.exit(1);
+        }
+        var properties = new Properties();
+        for (int i = 1; i < args.length; i++)
+        {
+            String[] keyValue = args[i].split("=", 2);
+            if (keyValue.length == 2)
+            {
+                properties.setProperty(keyValue[0].trim(), keyValue[1].trim());
+            }
+        }
+        OscPacketSource source = createSource(args[0], properties);
+        double speed = Double.parseDouble(properties.getProperty("speed", "1"));
+        var target = new InetSocketAddress(properties.getProperty("host", "localhost"), Integer.parseInt(properties.getProperty("port", "9001")));
+        try (var channel = DatagramChannel.open())
+        {
+            channel.connect(target);
+            log.info("Replaying {} to {} (speed={})", args[0], target, speed == 0 ? "max" : speed);
+            Result result = replay(source, speed, channel::write);
+            log.info("Sent {} packets in {} ms (max {} ms behind schedule)", result.packets(), TimeUnit.NANOSECONDS.toMillis(result.durationNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(result.maxLateNanos()));
+        }
+    }
+
+    private static OscPacketSource createSource(String source, Properties properties) throws IOException
+    {
+        for (SyntheticOscSource.Shape shape : SyntheticOscSource.Shape.values())
+        {
+            if (shape.name().equalsIgnoreCase(source))
+            {
+                return new SyntheticOscSource(new SyntheticOscSource.Settings(shape,
+                        properties.getProperty("address", "/avatar/parameters/OGB/Orf/Replay/PenOthersNewRoot"),
+                        Integer.parseInt(properties.getProperty("rateHz", "60")),
+                        Double.parseDouble(properties.getProperty("strokeHz", "1")),
+                        Integer.parseInt(properties.getProperty("burstSize", "10")),
+                        Integer.parseInt(properties.getProperty("burstGapMs", "300")),
+                        Integer.parseInt(properties.getProperty("durationS", "60"))));
+            }
+        }
+        return new CaptureOscSource(Path.of(source));
+    }
+
+    // Keeps original spacing between packets divided by speed (speed 0 = no waiting)
+    public static Result replay(OscPacketSource source, double speed, PacketSink sink) throws IOException
+    {
+        ByteBuffer packet = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+        long startNanos = System.nanoTime();
+        long packets = 0;
+        long maxLateNanos = 0;
+        long packetNanos;
+        while ((packetNanos = source.next(packet)) != OscPacketSource.END)
+        {
+            if (speed > 0)
+            {
+                long dueNanos = startNanos + (long) (packetNanos / speed);
+                maxLateNanos = Math.max(maxLateNanos, waitUntil(dueNanos));
+            }
+            sink.accept(packet);
+            packets++;
+        }
+        return new Result(packets, System.nanoTime() - startNanos, maxLateNanos);
+    }
+
+    // Returns how late it is
+    private static long waitUntil(long dueNanos)
+    {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0)
+        {
+            if (remaining > SPIN_BELOW_NANOS)
+            {
+                LockSupport.parkNanos(remaining - SPIN_BELOW_NANOS);
+            }
+            else
+            {
+                Thread.onSpinWait();
+            }
+        }
+        return -remaining;
+    }
+}
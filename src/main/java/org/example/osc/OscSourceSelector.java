@@ -0,0 +1,188 @@
+package org.example.osc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.metrics.Metrics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Keeps state for every concrete address matched by a wildcard and passes on values of one selected address (or a blend of them),
+// so several SPS contacts do not produce interleaved back and forth movement. Not thread-safe, used by receiver thread only.
+@Slf4j
+public class OscSourceSelector implements AddressedFloatConsumer
+{
+    private static final int MAX_SOURCES = 16;
+    private static final double ACTIVITY_DECAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final double SWITCH_ACTIVITY_RATIO = 1.25; // Other source must be this much more active to take over
+    private static final float SWITCH_DEPTH_MARGIN = 0.05f; // Other source must be this much deeper to take over
+    private static final double MIN_BLEND_WEIGHT = 1e-3; // Equal weights when nothing moves
+
+    private final SourceSelection selection;
+    private final FloatConsumer consumer;
+    private final byte[][] addresses = new byte[MAX_SOURCES][];
+    private final float[] values = new float[MAX_SOURCES];
+    private final long[] lastSampleNanos = new long[MAX_SOURCES];
+    private final double[] activity = new double[MAX_SOURCES]; // Sum of value changes, decayed since lastSampleNanos
+    private int sources;
+    private int selected = -1;
+    private boolean sourceLimitLogged;
+
+    public OscSourceSelector(SourceSelection selection, FloatConsumer consumer)
+    {
+        this.selection = selection;
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void accept(ByteBuffer packet, int addressStart, int addressEnd, float value, long sampleNanos)
+    {
+        int source = findSource(packet, addressStart, addressEnd);
+        if (source < 0)
+        {
+            source = addSource(packet, addressStart, addressEnd, value);
+        }
+        onSample(source, value, sampleNanos);
+    }
+
+    public void accept(String address, float value, long sampleNanos)
+    {
+        ByteBuffer packet = ByteBuffer.wrap(address.getBytes(StandardCharsets.US_ASCII));
+        accept(packet, 0, packet.limit(), value, sampleNanos);
+    }
+
+    private int findSource(ByteBuffer packet, int addressStart, int addressEnd)
+    {
+        int length = addressEnd - addressStart;
+        for (int source = 0; source < sources; source++)
+        {
+            byte[] address = addresses[source];
+            if (address.length == length && equals(packet, addressStart, address))
+            {
+                return source;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean equals(ByteBuffer packet, int start, byte[] address)
+    {
+        for (int i = address.length - 1; i >= 0; i--) // Addresses matched by wildcard usually share the beginning
+        {
+            if (packet.get(start + i) != address[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int addSource(ByteBuffer packet, int addressStart, int addressEnd, float value)
+    {
+        if (sources == MAX_SOURCES)
+        {
+            if (!sourceLimitLogged)
+            {
+                log.warn("More than {} addresses match avatar parameter, values of new ones are ignored", MAX_SOURCES);
+                sourceLimitLogged = true;
+            }
+            return -1;
+        }
+        byte[] address = new byte[addressEnd - addressStart];
+        packet.get(addressStart, address);
+        addresses[sources] = address;
+        values[sources] = value; // Appearing contact is not movement
+        log.info("New OSC source {}", new String(address, StandardCharsets.US_ASCII));
+        return sources++;
+    }
+
+    private void onSample(int source, float value, long sampleNanos)
+    {
+        if (source < 0)
+        {
+            Metrics.IGNORED_SOURCE_SAMPLES.increment();
+            return;
+        }
+        activity[source] = decayedActivity(source, sampleNanos) + Math.abs(value - values[source]);
+        values[source] = value;
+        lastSampleNanos[source] = sampleNanos;
+        switch (selection)
+        {
+            case ALL -> consumer.accept(value, sampleNanos);
+            case BLEND -> consumer.accept(blend(sampleNanos), sampleNanos);
+            case MOST_ACTIVE, DEEPEST -> forwardSelected(source, sampleNanos);
+        }
+    }
+
+    private void forwardSelected(int source, long sampleNanos)
+    {
+        int candidate = selection == SourceSelection.MOST_ACTIVE ? mostActive(sampleNanos) : deepest();
+        if (candidate != selected)
+        {
+            selected = candidate;
+            log.info("Following OSC source {} ({})", new String(addresses[selected], StandardCharsets.US_ASCII), selection);
+        }
+        else if (source != selected)
+        {
+            Metrics.IGNORED_SOURCE_SAMPLES.increment();
+            return;
+        }
+        consumer.accept(values[selected], sampleNanos);
+    }
+
+    private int mostActive(long nowNanos)
+    {
+        int best = selected < 0 ? 0 : selected;
+        double bestActivity = decayedActivity(best, nowNanos) * SWITCH_ACTIVITY_RATIO;
+        for (int source = 0; source < sources; source++)
+        {
+            double sourceActivity = decayedActivity(source, nowNanos);
+            if (sourceActivity > bestActivity)
+            {
+                best = source;
+                bestActivity = sourceActivity;
+            }
+        }
+        return best;
+    }
+
+    private int deepest()
+    {
+        int best = selected < 0 ? 0 : selected;
+        float bestValue = values[best] + SWITCH_DEPTH_MARGIN;
+        for (int source = 0; source < sources; source++)
+        {
+            if (values[source] > bestValue)
+            {
+                best = source;
+                bestValue = values[source];
+            }
+        }
+        return best;
+    }
+
+    private float blend(long nowNanos)
+    {
+        double weightedSum = 0;
+        double weights = 0;
+        for (int source = 0; source < sources; source++)
+        {
+            double weight = decayedActivity(source, nowNanos) + MIN_BLEND_WEIGHT;
+            weightedSum += weight * values[source];
+            weights += weight;
+        }
+        return (float) (weightedSum / weights);
+    }
+
+    private double decayedActivity(int source, long nowNanos)
+    {
+        return activity[source] * Math.exp(-Math.max(nowNanos - lastSampleNanos[source], 0) / ACTIVITY_DECAY_NANOS);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OscSourceSelector[%s, sources=%s]".formatted(selection, Arrays.stream(addresses, 0, sources).map(a -> new String(a, StandardCharsets.US_ASCII)).toList());
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.osc;
+
+// How values are picked when wildcard avatar parameter matches several addresses (several SPS contacts at once)
+public enum SourceSelection
+{
+    ALL, // Every matching address is followed, values are interleaved
+    MOST_ACTIVE, // Address with most movement recently
+    DEEPEST, // Address with highest value (deepest penetration)
+    BLEND // Average of all addresses weighted by their recent movement
+}
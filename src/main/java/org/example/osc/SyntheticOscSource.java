@@ -0,0 +1,70 @@
+package org.example.osc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Generated float messages for repeatable runs without VRChat. Noise uses fixed seed, so every run sends the same values.
+public class SyntheticOscSource implements OscPacketSource
+{
+    private static final byte[] FLOAT_TYPE_TAG = {',', 'f', 0, 0};
+    private static final long NOISE_SEED = 42;
+
+    public enum Shape
+    {
+        SINE, // Strokes at strokeHz
+        NOISE, // Random values, worst case for deadband and simplification
+        BURST // Strokes sent in bursts of burstSize messages separated by burstGapMs of silence
+    }
+
+    public record Settings(Shape shape, String address, int rateHz, double strokeHz, int burstSize, int burstGapMs, int durationS)
+    {
+    }
+
+    private final Settings settings;
+    private final byte[] address;
+    private final int typeTagPosition;
+    private final long intervalNanos;
+    private final long durationNanos;
+    private final Random random = new Random(NOISE_SEED);
+    private long message;
+    private long burstGapsNanos;
+
+    public SyntheticOscSource(Settings settings)
+    {
+        this.settings = settings;
+        this.address = settings.address().getBytes(StandardCharsets.US_ASCII);
+        this.typeTagPosition = (address.length + 4) & ~3; // Null terminated, padded to 4 bytes
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rateHz();
+        this.durationNanos = TimeUnit.SECONDS.toNanos(settings.durationS());
+    }
+
+    @Override
+    public long next(ByteBuffer packet)
+    {
+        if (settings.shape() == Shape.BURST && message > 0 && message % settings.burstSize() == 0)
+        {
+            burstGapsNanos += TimeUnit.MILLISECONDS.toNanos(settings.burstGapMs());
+        }
+        long nanos = message * intervalNanos + burstGapsNanos;
+        if (nanos > durationNanos)
+        {
+            return END;
+        }
+        float value = switch (settings.shape())
+        {
+            case SINE, BURST -> (float) (0.5 + 0.5 * Math.sin(2 * Math.PI * settings.strokeHz() * nanos / 1e9));
+            case NOISE -> random.nextFloat();
+        };
+        packet.clear();
+        packet.put(address);
+        while (packet.position() < typeTagPosition)
+        {
+            packet.put((byte) 0);
+        }
+        packet.put(FLOAT_TYPE_TAG).putFloat(value).flip();
+        message++;
+        return nanos;
+    }
+}
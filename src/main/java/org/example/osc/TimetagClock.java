@@ -0,0 +1,43 @@
+package org.example.osc;
+
+import java.util.concurrent.TimeUnit;
+
+// Maps OSC timetags (NTP format, sender wall clock) to local nanoTime. Offset between the clocks is the smallest (receive time - timetag)
+// seen recently, which belongs to the least delayed packet, so queueing on the way does not shift samples and sender clock does not
+// have to match ours. Not thread-safe, used by receiver thread only.
+public final class TimetagClock
+{
+    public static final long IMMEDIATE = 1; // Special timetag meaning "no time, process immediately"
+    private static final long SECONDS_FROM_1900_TO_1970 = 2_208_988_800L;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(5); // Lets offset follow clock drift and sender restarts
+
+    private long windowStartNanos;
+    private long windowMinOffsetNanos = Long.MAX_VALUE;
+    private long previousWindowMinOffsetNanos = Long.MAX_VALUE;
+
+    // Result is never later than receive time
+    public long toLocalNanos(long timetag, long receivedNanos)
+    {
+        if (timetag == IMMEDIATE)
+        {
+            return receivedNanos;
+        }
+        long timetagNanos = toEpochNanos(timetag);
+        if (receivedNanos - windowStartNanos > WINDOW_NANOS)
+        {
+            previousWindowMinOffsetNanos = windowMinOffsetNanos;
+            windowMinOffsetNanos = Long.MAX_VALUE;
+            windowStartNanos = receivedNanos;
+        }
+        windowMinOffsetNanos = Math.min(windowMinOffsetNanos, receivedNanos - timetagNanos);
+        long offsetNanos = Math.min(windowMinOffsetNanos, previousWindowMinOffsetNanos);
+        return Math.min(timetagNanos + offsetNanos, receivedNanos);
+    }
+
+    static long toEpochNanos(long timetag)
+    {
+        long seconds = (timetag >>> 32) - SECONDS_FROM_1900_TO_1970;
+        long fractionNanos = ((timetag & 0xFFFF_FFFFL) * 1_000_000_000L) >>> 32;
+        return seconds * 1_000_000_000L + fractionNanos;
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.processor;
+
+import org.example.handy.v3.dto.HspPoints;
+import org.example.handy.v3.dto.HspState;
+
+// Local mirror of the device HSP buffer window, updated from sent requests and HspState of every response
+public final class DeviceBufferModel
+{
+    private int lastSentPointTime = Integer.MIN_VALUE;
+    private int reportedLastPointTime = Integer.MIN_VALUE;
+
+    public synchronized void onSent(HspPoints points, boolean flush)
+    {
+        if (points.isEmpty())
+        {
+            return;
+        }
+        if (flush)
+        {
+            reportedLastPointTime = Integer.MIN_VALUE;
+        }
+        lastSentPointTime = points.t(points.size() - 1);
+    }
+
+    public synchronized void onResponse(HspState state)
+    {
+        if (state.last_point_time() != null)
+        {
+            reportedLastPointTime = Math.max(reportedLastPointTime, state.last_point_time());
+        }
+    }
+
+    // Removes leading points that would be already played when request reaches the device, returns number of removed points.
+    // When every point is outdated, the latest one is kept and moved to arrival time, so device still reaches current position.
+    public int dropExpired(HspPointBatch batch, int arrivalTimeMs)
+    {
+        int expired = 0;
+        while (expired < batch.size() && batch.t(expired) <= arrivalTimeMs)
+        {
+            expired++;
+        }
+        if (expired == 0)
+        {
+            return 0;
+        }
+        if (expired == batch.size())
+        {
+            int latestPosition = batch.x(batch.size() - 1);
+            batch.clear();
+            batch.add(arrivalTimeMs + 1, latestPosition);
+            return expired - 1;
+        }
+        batch.keepLast(batch.size() - expired);
+        return expired;
+    }
+
+    // Device holds points we have not sent (ex. from previous session) that would be played over the new ones
+    public synchronized boolean shouldFlush(int firstNewPointTime)
+    {
+        return reportedLastPointTime > lastSentPointTime && reportedLastPointTime >= firstNewPointTime;
+    }
+}
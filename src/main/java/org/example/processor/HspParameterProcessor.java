@@ -1,246 +1,506 @@
 package org.example.processor;
 
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.example.ConfigProperties;
-import org.example.handy.common.HandyBaseResponseWithError;
+import org.example.handy.common.HandyError;
 import org.example.handy.v3.HandyClientV3;
+import org.example.handy.v3.HttpClientRotator;
 import org.example.handy.v3.HandyModeV3;
 import org.example.handy.v3.dto.*;
+import org.example.jfr.BatchBuiltEvent;
+import org.example.jfr.HspAddEvent;
+import org.example.jfr.OscSampleEvent;
+import org.example.journal.EventJournal;
+import org.example.journal.JournalWarning;
+import org.example.metrics.Metrics;
+import org.example.processor.signal.SignalChain;
+import org.example.processor.signal.SignalStage;
 
+import java.net.http.HttpTimeoutException;
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 @Slf4j
 public class HspParameterProcessor implements ParameterProcessor
 {
     public static final int HSP_POINTS_PER_MSG_LIMIT = 100;
-    private final long INIT_TIME_MS;
-    private final List<HspPoint> hspPoints = Collections.synchronizedList(new ArrayList<>(20));
+    private static final int PENDING_POINTS_CAPACITY = 1024;
+    private static final int CLOCK_SYNC_WINDOW = 16;
+    private static final long SENDER_SHUTDOWN_TIMEOUT_MS = 1000;
+    private static final int STARVATION_WARNING_MS = 20;
+    private static final long MIN_HSP_ADD_DEADLINE_MS = 100;
+    private static final int FLUSH_BURST = 2; // Requests that can be sent in quick succession by early flushes
+    private final StreamClock streamClock;
+    private final HspPointRingBuffer hspPoints = new HspPointRingBuffer(PENDING_POINTS_CAPACITY);
+    private final HspPointBatch hspPointsBatch = new HspPointBatch(PENDING_POINTS_CAPACITY); // Reused by sender thread
+    private final HspPointSimplifier hspPointSimplifier = new HspPointSimplifier(PENDING_POINTS_CAPACITY);
     private final HandyClientV3 handyClient;
+    private final SendScheduler sendScheduler = new SendScheduler();
+    private final BooleanSupplier hasPendingPoints = () -> !hspPoints.isEmpty();
+    private final MotionPredictor motionPredictor; // null when prediction is disabled
+    private final HspSendPipeline hspSendPipeline;
+    private final AtomicLong lastCompletedSequence = new AtomicLong(-1);
+    private final DeviceBufferModel deviceBuffer = new DeviceBufferModel();
+    private final TurningPointDetector turningPointDetector = new TurningPointDetector(); // Accessed by OSC thread only
+    private final RequestBudget requestBudget = new RequestBudget(FLUSH_BURST); // Accessed by sender thread only
+    private Thread senderThread;
 
-    private int lastPosition = 100;
+    private int lastPointTime = Integer.MIN_VALUE; // Accessed by OSC thread only
+    private long droppedPoints;
 
-    private int timeOffsetMs;
-    private int timeBetweenMessages; // Difference between TIME_OFFSET_MS and this should account for delay to reach handy so that 1st point gets played
-    private int minimalValueChange;
-    private float penetratorLength;
-    private SpsType spsType;
-    private boolean waitForApiResponse;
+    private volatile HspTunables tunables; // Read once per call by hot path, swapped whole on config reload
+    private volatile SignalStage signalChain; // Stateful, used by OSC thread only and replaced when its settings are reloaded
+    private volatile int fixedPointsOffsetMs; // Used when adaptive offset is disabled
+    private volatile PointsOffsetController pointsOffsetController; // null when adaptive offset is disabled, only writer of adaptive offset
+    private ConfigProperties appliedConfig; // Accessed by config reloading thread only
 
-    private Consumer<Integer> onValueChange;
+    private volatile ProcessorListener listener = ProcessorListener.NONE;
 
     public HspParameterProcessor(HandyClientV3 handyClient, ConfigProperties config)
+    {
+        this(handyClient, config, startStreamAsync(handyClient).join());
+        applySliderSettingsAsync(handyClient, config.sliderMin(), config.sliderMax()).join();
+    }
+
+    // Stream must already be playing, see startStreamAsync
+    public HspParameterProcessor(HandyClientV3 handyClient, ConfigProperties config, StreamClock streamClock)
     {
         this.handyClient = handyClient;
-        setupProperties(config);
-        HandyBaseResponseWithError response = this.handyClient.changeMode(HandyModeV3.HSP);
-        if (response.error() != null)
-        {
-            log.error("Could not change Handy mode to HSP (reason: {}). Closing app...", response.error().message());
-            System.exit(1); // TODO For every exit(1) add Error Dialog (static method in main)
-        }
-        HandySetupResponse setupResponse = this.handyClient.hspSetup();
-        if (setupResponse.error() != null)
-        {
-            log.error("Could not setup HSP stream (reason: {}). Closing app...", setupResponse.error().message());
-            System.exit(1);
-        }
-        this.INIT_TIME_MS = System.currentTimeMillis();
-        HandyBaseResponseWithError playResponse = this.handyClient.hspPlay(0, 0, false);
-        if (playResponse.error() != null)
+        this.streamClock = streamClock;
+        this.motionPredictor = config.processingAlgorithm() == ParameterProcessorType.HSP_PREDICTIVE
+                ? new MotionPredictor(config.predictionHorizonMs(), config.predictionDivergence(), HSP_POINTS_PER_MSG_LIMIT)
+                : null;
+        this.hspSendPipeline = new HspSendPipeline(this::sendHspMessage, config.maxRequestsInFlight(), HSP_POINTS_PER_MSG_LIMIT);
+        this.tunables = HspTunables.from(config);
+        this.signalChain = SignalChain.from(config).build();
+        setupPointsOffset(config);
+        this.appliedConfig = config;
+    }
+
+    // Switches Handy to HSP mode and starts an empty stream. Completes exceptionally with reason when Handy returns an error.
+    public static CompletableFuture<StreamClock> startStreamAsync(HandyClientV3 handyClient)
+    {
+        return handyClient.changeModeAsync(HandyModeV3.HSP)
+                .thenCompose(response ->
+                {
+                    throwOnError(response.error(), "Could not change Handy mode to HSP");
+                    return handyClient.hspSetupAsync();
+                })
+                .thenCompose(setupResponse ->
+                {
+                    throwOnError(setupResponse.error(), "Could not setup HSP stream");
+                    var streamClock = new StreamClock(System.nanoTime(), CLOCK_SYNC_WINDOW); // Stream starts at 0, refined with every HSP response
+                    return handyClient.hspPlayAsync(0, 0, false).thenApply(playResponse ->
+                    {
+                        throwOnError(playResponse.error(), "Could not play HSP stream");
+                        return streamClock;
+                    });
+                });
+    }
+
+    private static void throwOnError(HandyError error, String message)
+    {
+        if (error != null)
         {
-            log.error("Could not play HSP stream (reason: {}). Closing app...", playResponse.error().message());
-            System.exit(1);
+            throw new IllegalStateException("%s (reason: %s)".formatted(message, error.message()));
         }
-        this.handyClient.setSliderSettings(config.sliderMin(), config.sliderMax());
-        Optional<SliderSettingsResult> sliderSettings = this.handyClient.getSliderSettings();
-        sliderSettings.ifPresent(s -> log.info("Slider settings min={}, max={}", s.min(), s.max()));
+    }
+
+    public static CompletableFuture<Void> applySliderSettingsAsync(HandyClientV3 handyClient, Float sliderMin, Float sliderMax)
+    {
+        return handyClient.setSliderSettingsAsync(sliderMin, sliderMax)
+                .thenCompose(ignored -> handyClient.getSliderSettingsAsync())
+                .thenAccept(sliderSettings -> sliderSettings.ifPresent(s -> log.info("Slider settings min={}, max={}", s.min(), s.max())));
     }
 
     @Override
-    public void setValueChangeListener(Consumer<Integer> onValueChange)
+    public void setListener(ProcessorListener listener)
     {
-        this.onValueChange = onValueChange;
+        this.listener = listener;
     }
 
-    private void setupProperties(ConfigProperties config)
+    private void setupPointsOffset(ConfigProperties config)
     {
-        synchronized (hspPoints)
-        {
-            this.timeOffsetMs = config.pointsOffset();
-            this.timeBetweenMessages = config.sendMessageEveryMs();
-            this.minimalValueChange = config.minimalValueChange();
-            this.spsType = config.spsType();
-            this.penetratorLength = config.penetratorLength();
-            this.waitForApiResponse = config.waitForApiResponse();
-        }
+        this.fixedPointsOffsetMs = config.pointsOffset();
+        this.pointsOffsetController = config.adaptivePointsOffset()
+                ? new PointsOffsetController(config.pointsOffset(), config.pointsOffsetMin(), config.pointsOffsetMax(), config.targetSkipRate())
+                : null;
     }
 
     @Override
-    public void actOnValueChange(Float value)
+    public void actOnValueChange(float value, long sampleNanos)
     {
-        synchronized (hspPoints)
+        recordOscSampleEvent(value);
+        HspTunables tunables = this.tunables;
+        float chainOutput = signalChain.process(value, sampleNanos);
+        if (Float.isNaN(chainOutput)) // SignalStage.REJECTED
+        {
+            Metrics.DEDUPLICATED_POINTS.increment();
+            EventJournal.sample(value, Integer.MIN_VALUE, Integer.MIN_VALUE, false);
+            return;
+        }
+        int position = (int) chainOutput; // 100 = top, 0 = bottom
+        int t = Math.max(streamClock.streamTimeMs(sampleNanos) + timeOffsetMs(), lastPointTime + 1); // Keep timeline monotonic while clock offset is corrected
+        lastPointTime = t;
+        if (!hspPoints.offer(t, position))
         {
-            int position = (int) ((1.f - calculatePenetration(value)) * 100); // 100 = top, 0 = bottom
-            int positionChange = Math.abs(position - lastPosition);
-            if (minimalValueChange > positionChange)
+            Metrics.DROPPED_POINTS.increment();
+            EventJournal.warning(JournalWarning.PENDING_BUFFER_FULL, t, position, droppedPoints);
+            if (droppedPoints++ % PENDING_POINTS_CAPACITY == 0)
             {
-                return;
+                log.warn("Pending points buffer is full, dropping points (dropped so far: {})", droppedPoints);
             }
-            lastPosition = position;
-            int t = (int) (System.currentTimeMillis() - INIT_TIME_MS + timeOffsetMs);
-            hspPoints.add(new HspPoint(t, position));
-            onValueChange.accept(100 - position); // 0 = top, 100 = bottom
+            return;
+        }
+        EventJournal.sample(value, position, t, true);
+        sendScheduler.signalDataAvailable();
+        if (turningPointDetector.onPosition(position, tunables.turningPointJump()) && tunables.flushOnTurningPoints())
+        {
+            sendScheduler.requestFlush();
         }
+        listener.onInputValue(100 - position);
     }
 
-    private Float calculatePenetration(Float value)
+    // Event objects do not escape, so JIT removes their allocation
+    private static void recordOscSampleEvent(float value)
     {
-        if (spsType == SpsType.PENETRATOR)
+        var event = new OscSampleEvent();
+        if (event.shouldCommit())
         {
-            return value;
+            event.value = value;
+            event.commit();
         }
-        float exposedLength = 1.f - value;
-        float exposedRatio = exposedLength / penetratorLength;
-        float penetrationValue = Math.max(1.f - exposedRatio, 0.f); // Prevent negative values
-        return Math.min(penetrationValue, 1.f); // Cap at 1.f
     }
 
     @Override
     public void refreshConfig(ConfigProperties configProperties)
     {
-        setupProperties(configProperties);
+        ConfigProperties previous = appliedConfig;
+        appliedConfig = configProperties;
+        tunables = HspTunables.from(configProperties);
+        SignalChain signalChainSettings = SignalChain.from(configProperties);
+        if (!SignalChain.from(previous).equals(signalChainSettings)) // Filters keep their state otherwise
+        {
+            signalChain = signalChainSettings.build();
+            log.info("Signal chain rebuilt: {}", signalChainSettings.stages());
+        }
+        hspSendPipeline.setMaxInFlight(configProperties.maxRequestsInFlight());
+        // Adaptive offset keeps its learned value unless offset settings were edited
+        if (previous.pointsOffset() != configProperties.pointsOffset()
+                || previous.adaptivePointsOffset() != configProperties.adaptivePointsOffset()
+                || previous.pointsOffsetMin() != configProperties.pointsOffsetMin()
+                || previous.pointsOffsetMax() != configProperties.pointsOffsetMax()
+                || previous.targetSkipRate() != configProperties.targetSkipRate())
+        {
+            setupPointsOffset(configProperties);
+            log.info("Points offset set to {} ms (adaptive={})", configProperties.pointsOffset(), configProperties.adaptivePointsOffset());
+        }
+        if (!Objects.equals(previous.sliderMin(), configProperties.sliderMin()) || !Objects.equals(previous.sliderMax(), configProperties.sliderMax()))
+        {
+            applySliderSettingsAsync(handyClient, configProperties.sliderMin(), configProperties.sliderMax())
+                    .exceptionally(e ->
+                    {
+                        log.error("Could not change slider settings: {}", e.toString());
+                        return null;
+                    });
+        }
     }
 
     @Override
     public void run()
     {
-        new Thread(this::runSendingLogicInInfiniteLoop).start();
+        senderThread = new Thread(this::runSendingLogicUntilShutdown, "hsp-sender");
+        senderThread.start();
+    }
+
+    @Override
+    public void shutdown()
+    {
+        log.info("Stopping HSP sender...");
+        sendScheduler.shutdown();
+        if (senderThread == null)
+        {
+            return;
+        }
+        try
+        {
+            if (!senderThread.join(Duration.ofMillis(SENDER_SHUTDOWN_TIMEOUT_MS)))
+            {
+                log.warn("HSP sender did not stop within {} ms", SENDER_SHUTDOWN_TIMEOUT_MS);
+            }
+            hspSendPipeline.shutdown(SENDER_SHUTDOWN_TIMEOUT_MS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void runSendingLogicInInfiniteLoop()
+    private void runSendingLogicUntilShutdown()
     {
-        long lastMessageSentMs = 0;
-        while (true)
+        long lastMessageSentNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(tunables.timeBetweenMessages());
+        // Wait for 1st point, then for the sending window to open or a turning point (points arriving meanwhile are batched together)
+        while (sendScheduler.awaitData(hasPendingPoints))
         {
+            long deadlineNanos = getNextMessageDeadline(lastMessageSentNanos);
+            if (!sendScheduler.awaitDeadline(deadlineNanos, getEarliestFlush(lastMessageSentNanos)))
+            {
+                break;
+            }
             try
             {
-                lastMessageSentMs = trySendingMessage(lastMessageSentMs);
-                delayUntilNextMessageCanBeSent(lastMessageSentMs);
+                lastMessageSentNanos = sendMessage();
+                requestBudget.onRequest(lastMessageSentNanos, TimeUnit.MILLISECONDS.toNanos(tunables.timeBetweenMessages()));
+                if (lastMessageSentNanos < deadlineNanos)
+                {
+                    Metrics.EARLY_FLUSHES.increment();
+                }
             }
             catch (Exception e)
             {
                 log.error("Caught exception!", e);
             }
         }
+        log.info("HSP sender stopped");
     }
 
-    private void delayUntilNextMessageCanBeSent(long lastMessageSentMs)
+    private long sendMessage()
     {
-        long timeUntilNextMsg = getTimeUntilNextMsg(lastMessageSentMs);
-        if (timeUntilNextMsg <= 0)
+        HspPointBatch batch = getAndClearHspPoints();
+        long lastMessageSentNanos = System.nanoTime();
+        if (batch.isEmpty())
         {
-            sleepSafe(5); // Small sleep to avoid heavy CPU usage when no points to send
-            return;
+            return lastMessageSentNanos;
+        }
+        boolean flush;
+        HspPointBatch points;
+        boolean replaceForeignPoints = deviceBuffer.shouldFlush(batch.t(0));
+        if (replaceForeignPoints)
+        {
+            log.debug("Handy buffer contains points that were not sent by this app, replacing them");
+        }
+        if (motionPredictor == null)
+        {
+            flush = replaceForeignPoints;
+            points = batch;
+        }
+        else
+        {
+            flush = motionPredictor.buildRequest(batch, streamClock.nowMs(), replaceForeignPoints);
+            points = motionPredictor.request();
+            if (points.isEmpty()) // All points already covered by buffered prediction
+            {
+                return lastMessageSentNanos;
+            }
         }
-        sleepSafe(timeUntilNextMsg);
+        deviceBuffer.onSent(points, flush);
+        hspSendPipeline.submit(points, flush);
+        listener.onPointsSent(100 - points.x(points.size() - 1));
+        return lastMessageSentNanos;
     }
 
-    private void sleepSafe(long sleepMs)
+    HspPointBatch getAndClearHspPoints()
     {
+        var event = new BatchBuiltEvent();
+        event.begin();
+        hspPointsBatch.clear();
+        hspPoints.drainTo(hspPointsBatch, PENDING_POINTS_CAPACITY);
+        int drainedPoints = hspPointsBatch.size();
+        int ageMs = hspPointsBatch.isEmpty() ? 0 : streamClock.nowMs() - (hspPointsBatch.t(0) - timeOffsetMs()); // Points are enqueued with t = now + offset
+        if (!hspPointsBatch.isEmpty())
+        {
+            Metrics.ENQUEUE_TO_SEND_MS.record(ageMs);
+        }
+        hspPointSimplifier.simplify(hspPointsBatch, tunables.simplifyTolerance(), HSP_POINTS_PER_MSG_LIMIT);
+        int arrivalTime = streamClock.nowMs() + (int) streamClock.rttMs() / 2;
+        int expired = deviceBuffer.dropExpired(hspPointsBatch, arrivalTime);
+        if (expired > 0)
+        {
+            Metrics.DROPPED_POINTS.add(expired);
+            EventJournal.warning(JournalWarning.POINTS_EXPIRED, expired, arrivalTime, hspPointsBatch.size());
+            log.warn("Dropped {} points that would be outdated when reaching Handy (arrivalTime={}, pointsLeft={})", expired, arrivalTime, hspPointsBatch.size());
+        }
+        else if (hspPointsBatch.t(0) - arrivalTime < STARVATION_WARNING_MS)
+        {
+            onStarvationRisk(hspPointsBatch.t(0) - arrivalTime);
+        }
+        if (event.shouldCommit())
+        {
+            event.drainedPoints = drainedPoints;
+            event.points = hspPointsBatch.size();
+            event.expiredPoints = expired;
+            event.age = ageMs;
+            event.commit();
+        }
+        return hspPointsBatch;
+    }
+
+    private CompletableFuture<Void> sendHspMessage(long sequence, HspPointBatch points, boolean flush, boolean resendAllowed)
+    {
+        var event = new HspAddEvent();
+        event.begin();
+        event.sequence = sequence;
+        event.points = points.size();
+        event.status = "OK";
+        Metrics.HSP_ADD_REQUESTS.increment();
+        EventJournal.batch(sequence, points);
+        long requestSentNanos = System.nanoTime();
+        // Points are useless once the device played past the last of them, so request is abandoned by then
+        long deadlineMs = Math.max(points.t(points.size() - 1) - streamClock.nowMs(), MIN_HSP_ADD_DEADLINE_MS);
+        CompletableFuture<HandyHspAddResponse> request;
         try
         {
-            Thread.sleep(sleepMs);
+            request = handyClient.hspAddAsync(points, flush, Duration.ofMillis(deadlineMs), resendAllowed);
         }
-        catch (InterruptedException e)
+        catch (Exception e)
         {
-            log.error("Error while sleeping: {}", e.getMessage());
+            request = CompletableFuture.failedFuture(e);
         }
+        return request.handle((response, e) ->
+        {
+            try
+            {
+                if (e != null)
+                {
+                    onHspAddFailure(event, sequence, points, e);
+                }
+                else
+                {
+                    onHspAddResponse(event, sequence, points, response, requestSentNanos);
+                }
+            }
+            catch (Exception handlingException)
+            {
+                onHspAddFailure(event, sequence, points, handlingException);
+            }
+            finally
+            {
+                event.commit();
+            }
+            return null;
+        });
     }
 
-    @SneakyThrows
-    private long trySendingMessage(long lastMessageSentMs)
+    private void onHspAddResponse(HspAddEvent event, long sequence, HspPointBatch points, HandyHspAddResponse response, long requestSentNanos)
     {
-        if (hspPoints.isEmpty() || getTimeUntilNextMsg(lastMessageSentMs) > 5)
+        long responseReceivedNanos = System.nanoTime();
+        Metrics.HSP_ADD_RTT_MS.record(TimeUnit.NANOSECONDS.toMillis(responseReceivedNanos - requestSentNanos));
+        long previousCompletedSequence = lastCompletedSequence.getAndAccumulate(sequence, Math::max);
+        if (previousCompletedSequence > sequence)
         {
-            return lastMessageSentMs;
+            log.warn("Response for request #{} arrived after request #{}", sequence, previousCompletedSequence);
         }
-        List<HspPoint> hspPointsCopy = getAndClearHspPoints();
-        lastMessageSentMs = System.currentTimeMillis();
-        Thread requestThread = Thread.startVirtualThread(() -> sendHspMessage(hspPointsCopy));
-        if (waitForApiResponse) // TODO Remove?
+        if (response.error() != null)
+        {
+            event.status = "ERROR";
+            Metrics.HSP_ADD_FAILURES.increment();
+            EventJournal.warning(JournalWarning.ERROR_RESPONSE, response.error().code(), points.size(), sequence);
+            log.error("Error when sending command to Handy! (reason: {})", response.error().message());
+        }
+        else if (response.result() != null)
         {
-            long start = System.currentTimeMillis();
-            boolean hasCompleted = requestThread.join(Duration.of(330, ChronoUnit.MILLIS)); // TODO New param in config or take pointsOffset OR pointsOffset - delay to prevent points skipping
-            // TODO Calculate delay dynamically if not set in config? (new property)
-            long end = System.currentTimeMillis();
-            log.trace("Joining took {} ms", end - start); // TODO Delete this
-            if (!hasCompleted)
+            int currentTimeResponse = response.result().current_time();
+            EventJournal.response(sequence, currentTimeResponse, response.result().first_point_time(), response.result().last_point_time());
+            deviceBuffer.onResponse(response.result());
+            streamClock.onSample(requestSentNanos, responseReceivedNanos, currentTimeResponse);
+            int firstPointTime = points.t(0);
+            recordLeeway(firstPointTime - currentTimeResponse);
+            listener.onLeeway(firstPointTime - currentTimeResponse);
+            int skippedPoints = countPointsNotLaterThan(points, currentTimeResponse);
+            Metrics.SKIPPED_POINTS.add(skippedPoints);
+            adjustPointsOffset(firstPointTime - currentTimeResponse, requestSentNanos, responseReceivedNanos);
+            EventJournal.rtt(sequence, responseReceivedNanos - requestSentNanos, firstPointTime - currentTimeResponse, timeOffsetMs());
+            event.leeway = firstPointTime - currentTimeResponse;
+            event.pointsOffset = timeOffsetMs();
+            if (skippedPoints > 0)
             {
-                log.warn("Skipping waiting fo");
+                EventJournal.warning(JournalWarning.POINTS_SKIPPED, skippedPoints, currentTimeResponse, sequence);
             }
+            logPotentialIssues(points, firstPointTime, response.result().last_point_time(), currentTimeResponse, response.result().first_point_time());
+        }
+    }
+
+    private void onHspAddFailure(HspAddEvent event, long sequence, HspPointBatch points, Throwable e)
+    {
+        Metrics.HSP_ADD_FAILURES.increment();
+        Metrics.DROPPED_POINTS.add(points.size());
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof HttpTimeoutException)
+        {
+            event.status = "TIMEOUT";
+            EventJournal.warning(JournalWarning.REQUEST_TIMED_OUT, points.size(), points.t(points.size() - 1), sequence);
+            log.warn("HSP request not completed before its points expired, dropped {} points (request #{})", points.size(), sequence);
+            return;
         }
-        return lastMessageSentMs;
+        if (HttpClientRotator.isGoAway(cause))
+        {
+            event.status = "GOAWAY";
+            EventJournal.warning(JournalWarning.GOAWAY, points.size(), points.t(0), sequence);
+            log.warn("Received GOAWAY, dropped {} points (request #{})", points.size(), sequence);
+            return;
+        }
+        event.status = "FAILED";
+        EventJournal.warning(JournalWarning.REQUEST_FAILED, points.size(), points.t(0), sequence);
+        log.error("Exception when sending hsp points: {}", cause.toString());
     }
 
-    private List<HspPoint> getAndClearHspPoints()
+    private static void recordLeeway(int leewayMs)
     {
-        List<HspPoint> hspPointsCopy;
-        synchronized (hspPoints)
+        if (leewayMs >= 0)
         {
-            hspPointsCopy = new ArrayList<>(hspPoints);
-            hspPoints.clear();
+            Metrics.LEEWAY_MS.record(leewayMs);
         }
-        if (hspPointsCopy.size() >= HSP_POINTS_PER_MSG_LIMIT)
+        else
         {
-            hspPointsCopy = hspPointsCopy.stream()
-                    .skip(HSP_POINTS_PER_MSG_LIMIT - hspPointsCopy.size()) // Skip points over limit
-                    .collect(Collectors.toCollection(ArrayList::new));
-            log.warn("Skipped some points before sending {}", hspPointsCopy);
+            Metrics.LATENESS_MS.record(-leewayMs); // Histograms hold non-negative values only
         }
-        if (hspPointsCopy.get(0).t() <= (System.currentTimeMillis() - INIT_TIME_MS))
+    }
+
+    private static int countPointsNotLaterThan(HspPointBatch points, int timeMs)
+    {
+        int count = 0;
+        while (count < points.size() && points.t(count) <= timeMs)
         {
-            log.error("Some points are outdated before sending! hspPointsCopy={}, currentTime={}", hspPointsCopy, System.currentTimeMillis() - INIT_TIME_MS);
+            count++;
         }
-        return hspPointsCopy;
+        return count;
     }
 
-    private void sendHspMessage(List<HspPoint> hspPointsCopy)
+    private void onStarvationRisk(int marginMs)
     {
-        try
+        Metrics.STARVATION_RISKS.increment();
+        log.debug("Points will reach Handy only {} ms before being played, buffer is close to starving", marginMs);
+        listener.onStarvationRisk(marginMs);
+        PointsOffsetController controller = pointsOffsetController;
+        if (controller != null)
         {
-            HandyHspAddResponse response = handyClient.hspAdd(new HspAddRequest(hspPointsCopy, false));
-            if (response.error() != null)
-            {
-                log.error("Error when sending command to Handy! (reason: {})", response.error().message());
-            }
-            else if (response.result() != null)
-            {
-                int currentTimeResponse = response.result().current_time();
-                int firstPointTime = hspPointsCopy.getFirst().t();
-                log.trace("[HSP] Successfully sent command (hspPoints={}, timeOffsetLeeway={}, response={})", hspPointsCopy, firstPointTime - currentTimeResponse, response);
-                logPotentialIssues(hspPointsCopy, firstPointTime, response.result().last_point_time(), currentTimeResponse, response.result().first_point_time());
-            }
+            controller.onStarvationRisk(marginMs, STARVATION_WARNING_MS);
         }
-        catch (Exception e)
+    }
+
+    private void adjustPointsOffset(int leewayMs, long requestSentNanos, long responseReceivedNanos)
+    {
+        PointsOffsetController controller = pointsOffsetController;
+        if (controller == null)
         {
-            if (e.getMessage().contains("GOAWAY received"))
-            {
-                log.warn("Recieved GOAWAY, dropped points={}", hspPointsCopy);
-                return;
-            }
-            log.error("Exception when sending hsp points: {}", e.getMessage());
+            return;
         }
+        int rttMs = (int) TimeUnit.NANOSECONDS.toMillis(responseReceivedNanos - requestSentNanos);
+        controller.onBatchResult(leewayMs, rttMs, tunables.timeBetweenMessages());
+    }
+
+    private int timeOffsetMs()
+    {
+        PointsOffsetController controller = pointsOffsetController;
+        return controller != null ? controller.offsetMs() : fixedPointsOffsetMs;
     }
 
-    private void logPotentialIssues(List<HspPoint> hspPointsCopy, int firstPointTime, Integer lastPointTimeResponse, int currentTimeResponse, Integer firstPointTimeResponse)
+    private void logPotentialIssues(HspPointBatch points, int firstPointTime, Integer lastPointTimeResponse, int currentTimeResponse, Integer firstPointTimeResponse)
     {
         if (lastPointTimeResponse == null || firstPointTimeResponse == null)
         {
@@ -260,8 +520,19 @@ public class HspParameterProcessor implements ParameterProcessor
         }
     }
 
-    private long getTimeUntilNextMsg(long lastMessageSentMs)
+    private long getNextMessageDeadline(long lastMessageSentNanos)
     {
-        return timeBetweenMessages - (System.currentTimeMillis() - lastMessageSentMs);
+        return lastMessageSentNanos + TimeUnit.MILLISECONDS.toNanos(tunables.timeBetweenMessages());
+    }
+
+    private long getEarliestFlush(long lastMessageSentNanos)
+    {
+        HspTunables tunables = this.tunables;
+        if (!tunables.flushOnTurningPoints())
+        {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(lastMessageSentNanos + TimeUnit.MILLISECONDS.toNanos(tunables.minFlushSpacingMs()),
+                requestBudget.earliestRequestNanos(TimeUnit.MILLISECONDS.toNanos(tunables.timeBetweenMessages())));
     }
 }
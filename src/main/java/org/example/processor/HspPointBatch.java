@@ -0,0 +1,110 @@
+package org.example.processor;
+
+import org.example.handy.v3.dto.HspPoint;
+import org.example.handy.v3.dto.HspPoints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Reusable primitive batch of HSP points, owned by the sender thread
+public final class HspPointBatch implements HspPoints
+{
+    private final int[] times;
+    private final int[] positions;
+    private int size;
+
+    public HspPointBatch(int capacity)
+    {
+        this.times = new int[capacity];
+        this.positions = new int[capacity];
+    }
+
+    public void add(int t, int x)
+    {
+        times[size] = t;
+        positions[size] = x;
+        size++;
+    }
+
+    // Copies points of source starting at given index, caller makes sure they fit
+    public void append(HspPointBatch source, int from)
+    {
+        int count = source.size - from;
+        System.arraycopy(source.times, from, times, size, count);
+        System.arraycopy(source.positions, from, positions, size, count);
+        size += count;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public void keepLast(int count)
+    {
+        if (size <= count)
+        {
+            return;
+        }
+        int skipped = size - count;
+        System.arraycopy(times, skipped, times, 0, count);
+        System.arraycopy(positions, skipped, positions, 0, count);
+        size = count;
+    }
+
+    public void retain(boolean[] keep)
+    {
+        int kept = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (keep[i])
+            {
+                times[kept] = times[i];
+                positions[kept] = positions[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    @Override
+    public int t(int index)
+    {
+        return times[index];
+    }
+
+    @Override
+    public int x(int index)
+    {
+        return positions[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    // For logging and debugging only, requests are serialized directly from the arrays
+    public List<HspPoint> toHspPoints()
+    {
+        List<HspPoint> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            points.add(new HspPoint(times[i], positions[i]));
+        }
+        return points;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toHspPoints().toString();
+    }
+}
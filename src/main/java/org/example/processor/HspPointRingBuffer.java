@@ -0,0 +1,68 @@
+package org.example.processor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free single-producer (OSC thread) / single-consumer (sender thread) queue of primitive HSP points
+public final class HspPointRingBuffer
+{
+    private final int[] times;
+    private final int[] positions;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next index to read, written by consumer only
+    private final AtomicLong tail = new AtomicLong(); // Next index to write, written by producer only
+    private long cachedHead; // Producer's view of head, refreshed only when buffer looks full
+    private long cachedTail; // Consumer's view of tail, refreshed only when buffer looks empty
+
+    public HspPointRingBuffer(int capacity)
+    {
+        int powerOfTwoCapacity = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.times = new int[powerOfTwoCapacity];
+        this.positions = new int[powerOfTwoCapacity];
+        this.mask = powerOfTwoCapacity - 1;
+    }
+
+    public boolean offer(int t, int x)
+    {
+        long currentTail = tail.getPlain();
+        if (currentTail - cachedHead >= times.length)
+        {
+            cachedHead = head.getAcquire();
+            if (currentTail - cachedHead >= times.length)
+            {
+                return false;
+            }
+        }
+        int index = (int) currentTail & mask;
+        times[index] = t;
+        positions[index] = x;
+        tail.setRelease(currentTail + 1);
+        return true;
+    }
+
+    public int drainTo(HspPointBatch batch, int maxPoints)
+    {
+        long currentHead = head.getPlain();
+        if (currentHead >= cachedTail)
+        {
+            cachedTail = tail.getAcquire();
+        }
+        int available = (int) Math.min(cachedTail - currentHead, maxPoints);
+        for (int i = 0; i < available; i++)
+        {
+            int index = (int) (currentHead + i) & mask;
+            batch.add(times[index], positions[index]);
+        }
+        head.setRelease(currentHead + available);
+        return available;
+    }
+
+    public boolean isEmpty()
+    {
+        return head.getAcquire() >= tail.getAcquire();
+    }
+
+    public int capacity()
+    {
+        return times.length;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Ramer-Douglas-Peucker reduction using position deviation from interpolated line, keeps peaks and valleys above tolerance.
+// Preallocated and used by sender thread only.
+@Slf4j
+public final class HspPointSimplifier
+{
+    private final boolean[] keep;
+    private final int[] rangeStack;
+
+    public HspPointSimplifier(int capacity)
+    {
+        this.keep = new boolean[capacity];
+        this.rangeStack = new int[capacity * 2];
+    }
+
+    public void simplify(HspPointBatch batch, float tolerance, int maxPoints)
+    {
+        if (batch.size() <= 2 || (tolerance <= 0 && batch.size() <= maxPoints))
+        {
+            return;
+        }
+        float currentTolerance = tolerance;
+        int originalSize = batch.size();
+        while (markPointsToKeep(batch, currentTolerance) > maxPoints)
+        {
+            currentTolerance = Math.max(currentTolerance * 2, 1.f); // Tolerance grows until batch fits the limit
+        }
+        batch.retain(keep);
+        if (currentTolerance != tolerance)
+        {
+            log.debug("Simplified {} points to {} to fit limit (tolerance={})", originalSize, batch.size(), currentTolerance);
+        }
+    }
+
+    private int markPointsToKeep(HspPointBatch batch, float tolerance)
+    {
+        int last = batch.size() - 1;
+        for (int i = 1; i < last; i++)
+        {
+            keep[i] = false;
+        }
+        keep[0] = true;
+        keep[last] = true;
+        int kept = 2;
+        int stackSize = 0;
+        rangeStack[stackSize++] = 0;
+        rangeStack[stackSize++] = last;
+        while (stackSize > 0)
+        {
+            int end = rangeStack[--stackSize];
+            int start = rangeStack[--stackSize];
+            int farthest = -1;
+            float maxDeviation = tolerance;
+            for (int i = start + 1; i < end; i++)
+            {
+                float deviation = deviationFromLine(batch, start, end, i);
+                if (deviation > maxDeviation)
+                {
+                    maxDeviation = deviation;
+                    farthest = i;
+                }
+            }
+            if (farthest != -1)
+            {
+                keep[farthest] = true;
+                kept++;
+                rangeStack[stackSize++] = start;
+                rangeStack[stackSize++] = farthest;
+                rangeStack[stackSize++] = farthest;
+                rangeStack[stackSize++] = end;
+            }
+        }
+        return kept;
+    }
+
+    private static float deviationFromLine(HspPointBatch batch, int start, int end, int index)
+    {
+        int startTime = batch.t(start);
+        int duration = batch.t(end) - startTime;
+        if (duration <= 0)
+        {
+            return Math.abs(batch.x(index) - batch.x(start));
+        }
+        float ratio = (float) (batch.t(index) - startTime) / duration;
+        float interpolated = batch.x(start) + ratio * (batch.x(end) - batch.x(start));
+        return Math.abs(batch.x(index) - interpolated);
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.processor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.metrics.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+// Bounded, ordered pipeline of hspAdd requests. When all slots are busy, new batches are merged into a single pending request
+// (or replace it when they flush the device buffer anyway), so requests never overtake each other.
+// Requests are handed to the http client under the pipeline lock, so they are submitted strictly in sequence order.
+// Submitted points are copied into pooled batches, so sender can reuse its batch and requests do not allocate.
+@Slf4j
+public final class HspSendPipeline
+{
+    @FunctionalInterface
+    public interface RequestSender
+    {
+        // Must not block, points stay valid until returned future completes.
+        // Resending (retries, hedging) is allowed only when no other request can overtake the resent one.
+        CompletableFuture<?> send(long sequence, HspPointBatch points, boolean flush, boolean resendAllowed);
+    }
+
+    private final RequestSender requestSender;
+    private final int pointsLimit;
+    private int maxInFlight;
+    private int inFlight;
+    private long nextSequence;
+    private final ArrayDeque<HspPointBatch> freeBatches = new ArrayDeque<>();
+    private HspPointBatch pending;
+    private boolean pendingFlush;
+    private long mergedRequests;
+    private long supersededRequests;
+    private boolean running = true;
+
+    public HspSendPipeline(RequestSender requestSender, int maxInFlight, int pointsLimit)
+    {
+        this.requestSender = requestSender;
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        this.pointsLimit = pointsLimit;
+    }
+
+    public synchronized void setMaxInFlight(int maxInFlight)
+    {
+        this.maxInFlight = Math.max(maxInFlight, 1);
+        dispatchPendingIfPossible();
+    }
+
+    public synchronized void submit(HspPointBatch points, boolean flush)
+    {
+        if (!running || points.isEmpty())
+        {
+            return;
+        }
+        if (inFlight < maxInFlight && pending == null)
+        {
+            dispatch(copyOf(points), flush);
+            return;
+        }
+        if (pending == null || flush)
+        {
+            if (pending != null)
+            {
+                supersededRequests++;
+                log.debug("Pending request superseded by flush (superseded so far: {})", supersededRequests);
+                freeBatches.push(pending);
+            }
+            pending = copyOf(points);
+            pendingFlush = flush;
+            return;
+        }
+        mergeIntoPending(points);
+    }
+
+    public synchronized boolean isBusy()
+    {
+        return inFlight >= maxInFlight;
+    }
+
+    public synchronized void shutdown(long timeoutMs) throws InterruptedException
+    {
+        running = false;
+        if (pending != null)
+        {
+            log.info("Dropping pending HSP request on shutdown ({} points)", pending.size());
+            pending = null;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long remaining;
+        while (inFlight > 0 && (remaining = deadline - System.currentTimeMillis()) > 0)
+        {
+            wait(remaining);
+        }
+    }
+
+    private void mergeIntoPending(HspPointBatch points)
+    {
+        pending.append(points, Math.max(points.size() - pointsLimit, 0)); // Pooled batches hold two full requests
+        if (pending.size() > pointsLimit)
+        {
+            Metrics.DROPPED_POINTS.add(pending.size() - pointsLimit);
+            log.warn("Merged pending requests over limit, skipping {} oldest points", pending.size() - pointsLimit);
+            pending.keepLast(pointsLimit);
+        }
+        mergedRequests++;
+        log.trace("Merged request into pending one (merged so far: {})", mergedRequests);
+    }
+
+    private HspPointBatch copyOf(HspPointBatch points)
+    {
+        HspPointBatch copy = freeBatches.isEmpty() ? new HspPointBatch(2 * pointsLimit) : freeBatches.pop();
+        copy.clear();
+        int skipped = Math.max(points.size() - pointsLimit, 0);
+        if (skipped > 0)
+        {
+            Metrics.DROPPED_POINTS.add(skipped);
+            log.warn("Request over limit of {} points, skipping {} oldest points", pointsLimit, skipped);
+        }
+        copy.append(points, skipped);
+        return copy;
+    }
+
+    private void dispatch(HspPointBatch points, boolean flush)
+    {
+        long sequence = nextSequence++;
+        inFlight++;
+        CompletableFuture<?> request;
+        try
+        {
+            request = requestSender.send(sequence, points, flush, maxInFlight == 1);
+        }
+        catch (RuntimeException e)
+        {
+            request = CompletableFuture.failedFuture(e);
+        }
+        request.whenComplete((ignored, e) -> onCompleted(points));
+    }
+
+    private synchronized void onCompleted(HspPointBatch points)
+    {
+        inFlight--;
+        freeBatches.push(points);
+        dispatchPendingIfPossible();
+        notifyAll();
+    }
+
+    private void dispatchPendingIfPossible()
+    {
+        if (running && pending != null && inFlight < maxInFlight)
+        {
+            HspPointBatch points = pending;
+            pending = null;
+            dispatch(points, pendingFlush);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.processor;
+
+import org.example.ConfigProperties;
+
+// Immutable snapshot of settings that can be changed while running, replaced as a whole on config reload
+record HspTunables(
+        int timeBetweenMessages, // Difference between pointsOffset and this should account for delay to reach handy so that 1st point gets played
+        float simplifyTolerance,
+        boolean flushOnTurningPoints,
+        int turningPointJump, // Position change (in percentage) that is sent right away even without direction change
+        int minFlushSpacingMs
+)
+{
+    static HspTunables from(ConfigProperties config)
+    {
+        return new HspTunables(config.sendMessageEveryMs(), config.simplifyTolerance(), config.flushOnTurningPoints(), config.turningPointJump(),
+                config.minFlushSpacingMs());
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Alpha-beta (steady-state Kalman) estimator that extends every batch with extrapolated points. Real points that arrive for time
+// already covered by prediction are dropped while prediction stays close to them. After prediction diverged from real movement,
+// it is replaced with real points by flush and that batch is sent without prediction.
+// Used by sender thread only.
+@Slf4j
+public final class MotionPredictor
+{
+    private static final float ALPHA = 0.6f;
+    private static final float BETA = 0.2f;
+    private static final float VELOCITY_DECAY_PER_STEP = 0.6f; // Extrapolate conservatively to avoid overshooting reversals
+    private static final int PREDICTION_STEP_MS = 50;
+    private static final int HISTORY_CAPACITY = 1024;
+
+    private final int horizonMs;
+    private final int divergenceThreshold;
+    private final int pointsLimit;
+    private final HspPointBatch sentRealPoints = new HspPointBatch(HISTORY_CAPACITY); // Real points that may still be in device buffer
+    private final HspPointBatch sentPoints = new HspPointBatch(HISTORY_CAPACITY); // Real and predicted points that may still be in device buffer
+    private final HspPointBatch request;
+
+    private boolean initialized;
+    private float position;
+    private float velocity; // Position units per ms
+    private int lastMeasurementTime;
+    private int lastSentTime = Integer.MIN_VALUE;
+
+    // Batches of real points passed to buildRequest must not have more than pointsLimit points
+    public MotionPredictor(int horizonMs, int divergenceThreshold, int pointsLimit)
+    {
+        this.horizonMs = horizonMs;
+        this.divergenceThreshold = divergenceThreshold;
+        this.pointsLimit = pointsLimit;
+        this.request = new HspPointBatch(HISTORY_CAPACITY + pointsLimit + horizonMs / PREDICTION_STEP_MS);
+    }
+
+    // Fills request() with points to send (may be empty), returns true when they must replace device buffer (flush).
+    // replaceBuffer forces flush, ex. when device holds points that were not sent by this app.
+    public boolean buildRequest(HspPointBatch realPoints, int streamTimeMs, boolean replaceBuffer)
+    {
+        // Device only appends points after its last buffered one, so real points for predicted time can be sent only with flush
+        boolean flush = replaceBuffer || hasDiverged(realPoints);
+        for (int i = 0; i < realPoints.size(); i++)
+        {
+            update(realPoints.t(i), realPoints.x(i));
+        }
+        prunePlayed(sentRealPoints, streamTimeMs);
+        prunePlayed(sentPoints, streamTimeMs);
+
+        request.clear();
+        if (flush)
+        {
+            // Flush drops everything buffered on the device, so real points that were not played yet must be sent again
+            request.append(sentRealPoints, 0);
+            request.append(realPoints, 0);
+            log.trace("Replacing predicted tail with real points (forced={})", replaceBuffer);
+        }
+        else
+        {
+            int covered = 0; // Prediction for their time is close enough and already buffered
+            while (covered < realPoints.size() && realPoints.t(covered) <= lastSentTime)
+            {
+                covered++;
+            }
+            request.append(realPoints, covered);
+        }
+        for (int i = 0; i < realPoints.size(); i++)
+        {
+            addBounded(sentRealPoints, realPoints.t(i), realPoints.x(i));
+        }
+        if (!request.isEmpty())
+        {
+            lastSentTime = request.t(request.size() - 1);
+        }
+        if (!flush) // Prediction that just missed is likely to miss again (ex. around reversals)
+        {
+            appendPrediction();
+        }
+        if (request.size() > pointsLimit)
+        {
+            log.debug("Request over limit of {} points, skipping {} oldest real points", pointsLimit, request.size() - pointsLimit);
+            request.keepLast(pointsLimit);
+        }
+        if (flush)
+        {
+            sentPoints.clear();
+        }
+        for (int i = 0; i < request.size(); i++)
+        {
+            addBounded(sentPoints, request.t(i), request.x(i));
+        }
+        return flush;
+    }
+
+    // Reused by every buildRequest call
+    public HspPointBatch request()
+    {
+        return request;
+    }
+
+    private boolean hasDiverged(HspPointBatch realPoints)
+    {
+        if (sentPoints.isEmpty())
+        {
+            return false;
+        }
+        int bufferStart = sentPoints.t(0);
+        int bufferEnd = sentPoints.t(sentPoints.size() - 1);
+        for (int i = 0; i < realPoints.size(); i++)
+        {
+            int t = realPoints.t(i);
+            if (t >= bufferStart && t <= bufferEnd && Math.abs(realPoints.x(i) - bufferedPositionAt(t)) > divergenceThreshold)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private float bufferedPositionAt(int t)
+    {
+        if (t <= sentPoints.t(0))
+        {
+            return sentPoints.x(0);
+        }
+        for (int i = 1; i < sentPoints.size(); i++)
+        {
+            int t1 = sentPoints.t(i);
+            if (t <= t1)
+            {
+                int t0 = sentPoints.t(i - 1);
+                float ratio = (float) (t - t0) / (t1 - t0);
+                return sentPoints.x(i - 1) + ratio * (sentPoints.x(i) - sentPoints.x(i - 1));
+            }
+        }
+        return sentPoints.x(sentPoints.size() - 1);
+    }
+
+    private void update(int t, int x)
+    {
+        if (!initialized)
+        {
+            initialized = true;
+            position = x;
+            velocity = 0;
+            lastMeasurementTime = t;
+            return;
+        }
+        int dt = t - lastMeasurementTime;
+        if (dt <= 0)
+        {
+            return;
+        }
+        float predicted = position + velocity * dt;
+        float residual = x - predicted;
+        position = predicted + ALPHA * residual;
+        velocity += BETA * residual / dt;
+        lastMeasurementTime = t;
+    }
+
+    private void appendPrediction()
+    {
+        if (!initialized)
+        {
+            return;
+        }
+        float predictedPosition = position;
+        float stepVelocity = velocity;
+        for (int offset = PREDICTION_STEP_MS; offset <= horizonMs; offset += PREDICTION_STEP_MS)
+        {
+            stepVelocity *= VELOCITY_DECAY_PER_STEP;
+            predictedPosition = Math.clamp(predictedPosition + stepVelocity * PREDICTION_STEP_MS, 0.f, 100.f);
+            int t = lastMeasurementTime + offset;
+            int x = Math.round(predictedPosition);
+            if (t > lastSentTime)
+            {
+                request.add(t, x);
+                lastSentTime = t;
+            }
+        }
+    }
+
+    private static void addBounded(HspPointBatch points, int t, int x)
+    {
+        if (points.size() == HISTORY_CAPACITY)
+        {
+            points.keepLast(HISTORY_CAPACITY / 2);
+        }
+        points.add(t, x);
+    }
+
+    private static void prunePlayed(HspPointBatch points, int streamTimeMs)
+    {
+        int played = 0;
+        while (played < points.size() && points.t(played) <= streamTimeMs)
+        {
+            played++;
+        }
+        points.keepLast(points.size() - played);
+    }
+}
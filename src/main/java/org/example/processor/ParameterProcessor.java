@@ -2,12 +2,23 @@ package org.example.processor;
 
 import org.example.ConfigProperties;
 
-import java.util.function.Consumer;
-
 public interface ParameterProcessor
 {
-    void actOnValueChange(Float value);
+    // sampleNanos is System.nanoTime based time when value was produced, points are timed from it instead of processing time
+    void actOnValueChange(float value, long sampleNanos);
+
+    default void actOnValueChange(float value)
+    {
+        actOnValueChange(value, System.nanoTime());
+    }
+
+    default void actOnValueChange(Float value)
+    {
+        actOnValueChange(value.floatValue());
+    }
+
     void run();
+    void shutdown();
     void refreshConfig(ConfigProperties configProperties);
-    void setValueChangeListener(Consumer<Integer> onValueChange);
+    void setListener(ProcessorListener listener);
 }
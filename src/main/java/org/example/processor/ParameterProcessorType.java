@@ -3,4 +3,5 @@ package org.example.processor;
 public enum ParameterProcessorType
 {
     HSP,
+    HSP_PREDICTIVE,
 }
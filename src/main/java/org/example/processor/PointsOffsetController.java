@@ -0,0 +1,115 @@
+package org.example.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+
+// Closed-loop pointsOffset tuning: keeps the leeway quantile matching target skip rate slightly above zero
+@Slf4j
+public final class PointsOffsetController
+{
+    private static final int WINDOW_SIZE = 50;
+    private static final int UPDATE_EVERY_SAMPLES = 10;
+    private static final int SAFETY_MARGIN_MS = 10;
+    private static final int MAX_STEP_MS = 50;
+    private static final float GROW_DAMPING = 0.5f; // Grow faster than shrink, skipping is worse than extra latency
+    private static final float SHRINK_DAMPING = 0.2f;
+    private static final float RTT_QUANTILE = 0.95f;
+
+    private final int minOffsetMs;
+    private final int maxOffsetMs;
+    private final float targetSkipRate;
+    private final int[] leeways = new int[WINDOW_SIZE];
+    private final int[] rtts = new int[WINDOW_SIZE];
+    private final int[] sortScratch = new int[WINDOW_SIZE];
+    private int nextSample;
+    private int samples;
+    private int samplesSinceUpdate;
+    private boolean nudgedSinceUpdate;
+    private volatile int offsetMs; // Written under lock only, read without it by the hot path
+
+    public PointsOffsetController(int initialOffsetMs, int minOffsetMs, int maxOffsetMs, float targetSkipRate)
+    {
+        this.minOffsetMs = minOffsetMs;
+        this.maxOffsetMs = maxOffsetMs;
+        this.targetSkipRate = targetSkipRate;
+        this.offsetMs = Math.clamp(initialOffsetMs, minOffsetMs, maxOffsetMs);
+    }
+
+    public int offsetMs()
+    {
+        return offsetMs;
+    }
+
+    public synchronized void onBatchResult(int leewayMs, int rttMs, int sendIntervalMs)
+    {
+        leeways[nextSample] = leewayMs;
+        rtts[nextSample] = rttMs;
+        nextSample = (nextSample + 1) % WINDOW_SIZE;
+        samples = Math.min(samples + 1, WINDOW_SIZE);
+        if (++samplesSinceUpdate < UPDATE_EVERY_SAMPLES)
+        {
+            return;
+        }
+        samplesSinceUpdate = 0;
+        nudgedSinceUpdate = false;
+
+        int skipped = 0;
+        for (int i = 0; i < samples; i++)
+        {
+            if (leeways[i] <= 0)
+            {
+                skipped++;
+            }
+        }
+        float skipRate = (float) skipped / samples;
+        int leewayAtTarget = quantile(leeways, targetSkipRate);
+        int rttHigh = quantile(rtts, RTT_QUANTILE);
+        int floorMs = Math.clamp(sendIntervalMs + rttHigh / 2, minOffsetMs, maxOffsetMs); // Batch can wait whole interval and then travel one way
+
+        int error = SAFETY_MARGIN_MS - leewayAtTarget;
+        int step = Math.round(error * (skipRate > targetSkipRate || error > 0 ? GROW_DAMPING : SHRINK_DAMPING));
+        step = Math.clamp(step, -MAX_STEP_MS, MAX_STEP_MS);
+        int newOffsetMs = Math.clamp(offsetMs + step, floorMs, maxOffsetMs);
+        if (newOffsetMs != offsetMs)
+        {
+            log.debug("Adjusted pointsOffset {} -> {} ms (skipRate={}, leewayAtTarget={} ms, rttP95={} ms)", offsetMs, newOffsetMs, skipRate, leewayAtTarget, rttHigh);
+            applyOffset(newOffsetMs);
+        }
+    }
+
+    // Early warning from sender before the response confirms low leeway, grows offset at most once between regular updates
+    public synchronized void onStarvationRisk(int marginMs, int wantedMarginMs)
+    {
+        if (nudgedSinceUpdate)
+        {
+            return;
+        }
+        nudgedSinceUpdate = true;
+        int step = Math.clamp(Math.round((wantedMarginMs - marginMs) * GROW_DAMPING), 1, MAX_STEP_MS);
+        int newOffsetMs = Math.min(offsetMs + step, maxOffsetMs);
+        if (newOffsetMs != offsetMs)
+        {
+            log.debug("Adjusted pointsOffset {} -> {} ms (starvation risk, margin={} ms)", offsetMs, newOffsetMs, marginMs);
+            applyOffset(newOffsetMs);
+        }
+    }
+
+    private void applyOffset(int newOffsetMs)
+    {
+        int appliedStep = newOffsetMs - offsetMs;
+        for (int i = 0; i < samples; i++)
+        {
+            leeways[i] += appliedStep; // Past leeways would have shifted by the same amount with the new offset
+        }
+        offsetMs = newOffsetMs;
+    }
+
+    private int quantile(int[] values, float quantile)
+    {
+        System.arraycopy(values, 0, sortScratch, 0, samples);
+        Arrays.sort(sortScratch, 0, samples);
+        int index = Math.clamp((int) (quantile * samples), 0, samples - 1);
+        return sortScratch[index];
+    }
+}
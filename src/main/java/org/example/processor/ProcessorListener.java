@@ -0,0 +1,27 @@
+package org.example.processor;
+
+// Called from OSC and sender threads, implementations must return quickly and never block
+public interface ProcessorListener
+{
+    ProcessorListener NONE = new ProcessorListener()
+    {
+    };
+
+    // Penetration in percentage, 0 = none, 100 = full
+    default void onInputValue(int penetration)
+    {
+    }
+
+    default void onPointsSent(int lastPenetration)
+    {
+    }
+
+    default void onLeeway(int leewayMs)
+    {
+    }
+
+    // Batch is expected to reach Handy only marginMs before its first point is played
+    default void onStarvationRisk(int marginMs)
+    {
+    }
+}
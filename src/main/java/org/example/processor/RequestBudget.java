@@ -0,0 +1,24 @@
+package org.example.processor;
+
+// Token bucket (as generic cell rate algorithm) allowing on average one request per interval with a small burst,
+// so early flushes do not raise average request rate. Used by sender thread only.
+final class RequestBudget
+{
+    private final int burst;
+    private long theoreticalArrivalNanos = Long.MIN_VALUE;
+
+    RequestBudget(int burst)
+    {
+        this.burst = burst;
+    }
+
+    long earliestRequestNanos(long intervalNanos)
+    {
+        return theoreticalArrivalNanos == Long.MIN_VALUE ? Long.MIN_VALUE : theoreticalArrivalNanos - (burst - 1) * intervalNanos;
+    }
+
+    void onRequest(long sentNanos, long intervalNanos)
+    {
+        theoreticalArrivalNanos = (theoreticalArrivalNanos == Long.MIN_VALUE ? sentNanos : Math.max(theoreticalArrivalNanos, sentNanos)) + intervalNanos;
+    }
+}
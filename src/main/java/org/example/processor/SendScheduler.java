@@ -0,0 +1,85 @@
+package org.example.processor;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+// Parks the sender thread until there is something to send or its deadline passes, producer wakes it up only when it waits for data
+// or when it requests a flush (deadline is then moved up to earliest allowed flush time)
+public final class SendScheduler
+{
+    private volatile Thread waiter;
+    private volatile boolean waitingForData;
+    private volatile boolean running = true;
+    private volatile boolean flushRequested;
+
+    public boolean awaitData(BooleanSupplier hasData)
+    {
+        waiter = Thread.currentThread();
+        while (running && !hasData.getAsBoolean())
+        {
+            waitingForData = true;
+            VarHandle.fullFence(); // Pairs with fence in signalDataAvailable() so wakeup cannot be lost
+            if (hasData.getAsBoolean())
+            {
+                break;
+            }
+            LockSupport.park(this);
+        }
+        waitingForData = false;
+        return running;
+    }
+
+    public boolean awaitDeadline(long deadlineNanos)
+    {
+        return awaitDeadline(deadlineNanos, Long.MAX_VALUE);
+    }
+
+    // Returns at deadline or, when flush was requested, at earliestFlushNanos (Long.MAX_VALUE = flush not allowed)
+    public boolean awaitDeadline(long deadlineNanos, long earliestFlushNanos)
+    {
+        waiter = Thread.currentThread();
+        long remainingNanos;
+        while (running && (remainingNanos = (flushRequested ? Math.min(deadlineNanos, earliestFlushNanos) : deadlineNanos) - System.nanoTime()) > 0)
+        {
+            LockSupport.parkNanos(this, remainingNanos);
+        }
+        flushRequested = false; // Points pending so far are sent now
+        return running;
+    }
+
+    public void signalDataAvailable()
+    {
+        VarHandle.fullFence();
+        if (waitingForData)
+        {
+            waitingForData = false;
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    public void requestFlush()
+    {
+        flushRequested = true;
+        Thread currentWaiter = waiter;
+        if (currentWaiter != null)
+        {
+            LockSupport.unpark(currentWaiter);
+        }
+    }
+
+    public void shutdown()
+    {
+        running = false;
+        Thread currentWaiter = waiter;
+        if (currentWaiter != null)
+        {
+            LockSupport.unpark(currentWaiter);
+        }
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+}
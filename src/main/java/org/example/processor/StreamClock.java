@@ -0,0 +1,78 @@
+package org.example.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Monotonic (nanoTime based) estimate of Handy HSP stream time, synchronized NTP-style with current_time from HSP responses
+@Slf4j
+public final class StreamClock
+{
+    private static final long NANOS_PER_MS = 1_000_000L;
+    private static final long MAX_SLEW_NANOS = 2 * NANOS_PER_MS; // Max offset correction per sample, keeps timeline smooth
+
+    private final long originNanos;
+    private final long[] sampleRttNanos;
+    private final long[] sampleOffsetNanos;
+    private int nextSample;
+    private int samples;
+    private volatile long offsetNanos;
+    private volatile long rttNanos;
+
+    public StreamClock(long originNanos, int windowSize)
+    {
+        this.originNanos = originNanos;
+        this.sampleRttNanos = new long[windowSize];
+        this.sampleOffsetNanos = new long[windowSize];
+    }
+
+    public int streamTimeMs(long nanos)
+    {
+        return (int) ((nanos - originNanos + offsetNanos) / NANOS_PER_MS);
+    }
+
+    public int nowMs()
+    {
+        return streamTimeMs(System.nanoTime());
+    }
+
+    // serverTimeMs is assumed to be sampled by the server in the middle of the round trip
+    public synchronized void onSample(long requestSentNanos, long responseReceivedNanos, int serverTimeMs)
+    {
+        long rtt = responseReceivedNanos - requestSentNanos;
+        long localMidpointNanos = requestSentNanos + rtt / 2 - originNanos;
+        long sampleOffset = serverTimeMs * NANOS_PER_MS - localMidpointNanos;
+        sampleRttNanos[nextSample] = rtt;
+        sampleOffsetNanos[nextSample] = sampleOffset;
+        nextSample = (nextSample + 1) % sampleRttNanos.length;
+        boolean isFirstSample = samples == 0;
+        samples = Math.min(samples + 1, sampleRttNanos.length);
+
+        // Sample with the lowest RTT has the least queueing delay, so its offset is the most accurate one
+        int best = 0;
+        for (int i = 1; i < samples; i++)
+        {
+            if (sampleRttNanos[i] < sampleRttNanos[best])
+            {
+                best = i;
+            }
+        }
+        long targetOffsetNanos = sampleOffsetNanos[best];
+        long correctionNanos = targetOffsetNanos - offsetNanos;
+        if (!isFirstSample)
+        {
+            correctionNanos = Math.clamp(correctionNanos, -MAX_SLEW_NANOS, MAX_SLEW_NANOS);
+        }
+        offsetNanos += correctionNanos;
+        rttNanos = sampleRttNanos[best];
+        log.trace("Stream clock sample (rtt={} ms, offset={} ms, filteredOffset={} ms)", rtt / NANOS_PER_MS, sampleOffset / NANOS_PER_MS, offsetNanos / NANOS_PER_MS);
+    }
+
+    public long offsetMs()
+    {
+        return offsetNanos / NANOS_PER_MS;
+    }
+
+    public long rttMs()
+    {
+        return rttNanos / NANOS_PER_MS;
+    }
+}
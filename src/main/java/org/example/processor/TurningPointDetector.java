@@ -0,0 +1,22 @@
+package org.example.processor;
+
+// Finds positions worth sending right away: first point after direction change (previous point was a peak or valley) or a big jump
+final class TurningPointDetector
+{
+    private int lastPosition = 100;
+    private int lastDirection; // -1 down, 1 up, 0 unknown
+
+    boolean onPosition(int position, int jumpThreshold)
+    {
+        int change = position - lastPosition;
+        lastPosition = position;
+        if (change == 0)
+        {
+            return false;
+        }
+        int direction = Integer.signum(change);
+        boolean reversal = lastDirection != 0 && direction != lastDirection;
+        lastDirection = direction;
+        return reversal || Math.abs(change) >= jumpThreshold;
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.processor.signal;
+
+// Noise is measured from second difference of samples, which stays near zero for smooth movement of any speed
+// but not for jitter, so threshold grows only when contact is shaking
+final class AdaptiveDeadbandStage implements SignalStage
+{
+    private static final float NOISE_SMOOTHING = 0.05f;
+
+    private final float minimalChange;
+    private final float noiseFactor;
+    private final SignalStage next;
+    private float lastAccepted; // Starts at top
+    private float previous;
+    private float beforePrevious;
+    private float noise;
+
+    AdaptiveDeadbandStage(float minimalChange, float noiseFactor, SignalStage next)
+    {
+        this.minimalChange = minimalChange;
+        this.noiseFactor = noiseFactor;
+        this.next = next;
+    }
+
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        noise += (Math.abs(value - 2 * previous + beforePrevious) - noise) * NOISE_SMOOTHING;
+        beforePrevious = previous;
+        previous = value;
+        float change = Math.abs(value - lastAccepted);
+        boolean accepted = change >= Math.max(minimalChange, noiseFactor * noise);
+        Deadband.recordEvent(value, change, accepted);
+        if (!accepted)
+        {
+            return REJECTED;
+        }
+        lastAccepted = value;
+        return next.process(value, sampleNanos);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.processor.signal;
+
+final class ClampStage implements SignalStage
+{
+    private final float min;
+    private final float max;
+    private final SignalStage next;
+
+    ClampStage(float min, float max, SignalStage next)
+    {
+        this.min = min;
+        this.max = max;
+        this.next = next;
+    }
+
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        return next.process(Math.clamp(value, min, max), sampleNanos);
+    }
+}
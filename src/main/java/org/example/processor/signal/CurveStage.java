@@ -0,0 +1,26 @@
+package org.example.processor.signal;
+
+// Multiplier makes small movements bigger (useful in PENETRATOR mode where penetratorLength is not used),
+// exponent below 1 boosts shallow part of range and above 1 the deep part
+final class CurveStage implements SignalStage
+{
+    private final float multiplier;
+    private final float exponent;
+    private final boolean linear;
+    private final SignalStage next;
+
+    CurveStage(float multiplier, float exponent, SignalStage next)
+    {
+        this.multiplier = multiplier;
+        this.exponent = exponent;
+        this.linear = exponent == 1.f;
+        this.next = next;
+    }
+
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        float curved = linear ? value : (float) Math.pow(Math.max(value, 0.f), exponent);
+        return next.process(multiplier * curved, sampleNanos);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.processor.signal;
+
+import org.example.jfr.DeadbandEvent;
+
+final class Deadband
+{
+    private Deadband()
+    {
+    }
+
+    // Event objects do not escape, so JIT removes their allocation
+    static void recordEvent(float value, float change, boolean accepted)
+    {
+        var event = new DeadbandEvent();
+        if (event.shouldCommit())
+        {
+            event.position = (int) ((1.f - value) * 100);
+            event.positionChange = (int) (change * 100);
+            event.accepted = accepted;
+            event.commit();
+        }
+    }
+}
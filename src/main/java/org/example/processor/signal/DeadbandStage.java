@@ -0,0 +1,28 @@
+package org.example.processor.signal;
+
+final class DeadbandStage implements SignalStage
+{
+    private final float minimalChange;
+    private final SignalStage next;
+    private float lastAccepted; // Starts at top
+
+    DeadbandStage(float minimalChange, SignalStage next)
+    {
+        this.minimalChange = minimalChange;
+        this.next = next;
+    }
+
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        float change = Math.abs(value - lastAccepted);
+        boolean accepted = change >= minimalChange;
+        Deadband.recordEvent(value, change, accepted);
+        if (!accepted)
+        {
+            return REJECTED;
+        }
+        lastAccepted = value;
+        return next.process(value, sampleNanos);
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.processor.signal;
+
+import java.util.concurrent.TimeUnit;
+
+// Smoothing factor depends on time between samples, so irregular OSC rate does not change amount of smoothing
+final class EmaStage implements SignalStage
+{
+    private final float timeConstantNanos;
+    private final SignalStage next;
+    private float smoothed;
+    private long lastSampleNanos;
+    private boolean initialized;
+
+    EmaStage(int timeConstantMs, SignalStage next)
+    {
+        this.timeConstantNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(timeConstantMs, 1));
+        this.next = next;
+    }
+
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        if (!initialized)
+        {
+            smoothed = value;
+            initialized = true;
+        }
+        else
+        {
+            float elapsedNanos = Math.max(sampleNanos - lastSampleNanos, 0);
+            smoothed += (value - smoothed) * elapsedNanos / (elapsedNanos + timeConstantNanos);
+        }
+        lastSampleNanos = sampleNanos;
+        return next.process(smoothed, sampleNanos);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.processor.signal;
+
+// One Euro filter (Casiez et al.): cutoff frequency grows with speed, so jitter is removed when still and lag stays low when moving
+final class OneEuroStage implements SignalStage
+{
+    private static final float DERIVATIVE_CUTOFF_HZ = 1.f;
+    private static final float MIN_ELAPSED_SECONDS = 1e-3f; // Samples from one OSC bundle share timestamp
+
+    private final float minCutoffHz;
+    private final float beta;
+    private final SignalStage next;
+    private float smoothed;
+    private float smoothedSpeed;
+    private long lastSampleNanos;
+    private boolean initialized;
+
+    OneEuroStage(float minCutoffHz, float beta, SignalStage next)
+    {
+        this.minCutoffHz = minCutoffHz;
+        this.beta = beta;
+        this.next = next;
+    }
+
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        if (!initialized)
+        {
+            smoothed = value;
+            initialized = true;
+        }
+        else
+        {
+            float elapsedSeconds = Math.max((sampleNanos - lastSampleNanos) / 1e9f, MIN_ELAPSED_SECONDS);
+            float speed = (value - smoothed) / elapsedSeconds;
+            smoothedSpeed += (speed - smoothedSpeed) * smoothingFactor(elapsedSeconds, DERIVATIVE_CUTOFF_HZ);
+            float cutoffHz = minCutoffHz + beta * Math.abs(smoothedSpeed);
+            smoothed += (value - smoothed) * smoothingFactor(elapsedSeconds, cutoffHz);
+        }
+        lastSampleNanos = sampleNanos;
+        return next.process(smoothed, sampleNanos);
+    }
+
+    private static float smoothingFactor(float elapsedSeconds, float cutoffHz)
+    {
+        float timeConstant = 1.f / (2 * (float) Math.PI * cutoffHz);
+        return elapsedSeconds / (elapsedSeconds + timeConstant);
+    }
+}
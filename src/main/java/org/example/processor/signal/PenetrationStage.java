@@ -0,0 +1,29 @@
+package org.example.processor.signal;
+
+import org.example.processor.SpsType;
+
+final class PenetrationStage implements SignalStage
+{
+    private final boolean orifice;
+    private final float penetratorLength;
+    private final SignalStage next;
+
+    PenetrationStage(SpsType spsType, float penetratorLength, SignalStage next)
+    {
+        this.orifice = spsType == SpsType.ORIFICE;
+        this.penetratorLength = penetratorLength;
+        this.next = next;
+    }
+
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        if (!orifice)
+        {
+            return next.process(value, sampleNanos);
+        }
+        float exposedLength = 1.f - value;
+        float exposedRatio = exposedLength / penetratorLength;
+        return next.process(Math.clamp(1.f - exposedRatio, 0.f, 1.f), sampleNanos); // Prevent negative values and cap at 1
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.processor.signal;
+
+// Last stage of every chain, penetration (0 - 1) to HSP position
+final class PositionStage implements SignalStage
+{
+    @Override
+    public float process(float value, long sampleNanos)
+    {
+        return (1.f - Math.clamp(value, 0.f, 1.f)) * 100; // 100 = top, 0 = bottom
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.processor.signal;
+
+import org.example.ConfigProperties;
+import org.example.processor.SpsType;
+
+import java.util.List;
+
+// Signal chain settings, changed stages or their settings require building new chain (and losing filter state)
+public record SignalChain(
+        List<SignalStageType> stages,
+        SpsType spsType,
+        float penetratorLength,
+        int smoothingMs,
+        float oneEuroMinCutoff,
+        float oneEuroBeta,
+        int minimalValueChange,
+        float deadbandNoiseFactor,
+        float penetrationMultiplier,
+        float penetrationCurve,
+        float clampMin,
+        float clampMax
+)
+{
+    public static final List<SignalStageType> DEFAULT_STAGES = List.of(SignalStageType.PENETRATION, SignalStageType.DEADBAND);
+
+    public static SignalChain from(ConfigProperties config)
+    {
+        return new SignalChain(config.signalChain() == null ? DEFAULT_STAGES : config.signalChain(), config.spsType(), config.penetratorLength(),
+                config.smoothingMs(), config.oneEuroMinCutoff(), config.oneEuroBeta(), config.minimalValueChange(), config.deadbandNoiseFactor(),
+                config.penetrationMultiplier(), config.penetrationCurve(), config.clampMin(), config.clampMax());
+    }
+
+    // Builds from the end, every stage gets its successor. Position mapping is always the last stage.
+    public SignalStage build()
+    {
+        SignalStage next = new PositionStage();
+        for (SignalStageType type : stages.reversed())
+        {
+            float minimalChange = minimalValueChange / 100.f; // Setting is in percentage
+            next = switch (type)
+            {
+                case PENETRATION -> new PenetrationStage(spsType, penetratorLength, next);
+                case EMA -> new EmaStage(smoothingMs, next);
+                case ONE_EURO -> new OneEuroStage(oneEuroMinCutoff, oneEuroBeta, next);
+                case DEADBAND -> new DeadbandStage(minimalChange, next);
+                case ADAPTIVE_DEADBAND -> new AdaptiveDeadbandStage(minimalChange, deadbandNoiseFactor, next);
+                case CURVE -> new CurveStage(penetrationMultiplier, penetrationCurve, next);
+                case CLAMP -> new ClampStage(clampMin, clampMax, next);
+            };
+        }
+        return next;
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.processor.signal;
+
+// One step of signal chain. Stages are final classes holding their successor, so every call site sees a single receiver type
+// and JIT can inline the whole chain into the processor.
+public interface SignalStage
+{
+    float REJECTED = Float.NaN;
+
+    // Returns HSP position (100 = top, 0 = bottom) or REJECTED when value should not become a point
+    float process(float value, long sampleNanos);
+}
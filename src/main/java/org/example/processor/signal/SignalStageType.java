@@ -0,0 +1,12 @@
+package org.example.processor.signal;
+
+public enum SignalStageType
+{
+    PENETRATION, // Penetration amount from avatar parameter, depends on spsType and penetratorLength
+    EMA, // Exponential smoothing with smoothingMs time constant
+    ONE_EURO, // Smoothing that follows fast movement closely and filters slow jitter more (oneEuroMinCutoff, oneEuroBeta)
+    DEADBAND, // Ignores changes smaller than minimalValueChange
+    ADAPTIVE_DEADBAND, // Like DEADBAND, but threshold grows with measured noise (deadbandNoiseFactor)
+    CURVE, // penetrationMultiplier * value ^ penetrationCurve
+    CLAMP // Limits value to clampMin - clampMax
+}
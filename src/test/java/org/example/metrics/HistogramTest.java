@@ -0,0 +1,70 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest
+{
+    @Test
+    void keepsSmallValuesExact()
+    {
+        for (int value = 0; value < 32; value++)
+        {
+            assertEquals(value, Histogram.bucketUpperBound(Histogram.bucketIndex(value)));
+        }
+    }
+
+    @Test
+    void bucketsCoverValuesWithinRelativeError()
+    {
+        var random = new SplittableRandom(1);
+        for (int i = 0; i < 100_000; i++)
+        {
+            long value = random.nextLong(32, 1L << random.nextInt(6, 62));
+            long upperBound = Histogram.bucketUpperBound(Histogram.bucketIndex(value));
+            assertTrue(upperBound >= value && upperBound <= value + value / 16, "value " + value + ", upper bound " + upperBound);
+        }
+        assertEquals(Long.MAX_VALUE, Histogram.bucketUpperBound(Histogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void reportsCountSumMaxAndQuantiles()
+    {
+        var histogram = new Histogram();
+        for (int value = 1; value <= 100; value++)
+        {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(5050, histogram.sum());
+        assertEquals(100, histogram.max());
+        assertEquals(100, histogram.valueAtQuantile(1.0));
+        long median = histogram.valueAtQuantile(0.5);
+        assertTrue(median >= 50 && median <= 53, "median " + median);
+        assertEquals(31, histogram.countAtOrBelow(31));
+    }
+
+    @Test
+    void recordsNegativeValuesAsZero()
+    {
+        var histogram = new Histogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.countAtOrBelow(0));
+        assertEquals(0, histogram.sum());
+    }
+
+    @Test
+    void emptyHistogramReportsZero()
+    {
+        var histogram = new Histogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAtQuantile(0.99));
+    }
+}
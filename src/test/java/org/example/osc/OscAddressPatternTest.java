@@ -0,0 +1,82 @@
+package org.example.osc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OscAddressPatternTest
+{
+    private static final String PARAMETERS = "/avatar/parameters/";
+
+    @Test
+    void matchesExactAddress()
+    {
+        assertTrue(matches(PARAMETERS + "OGB/Pen/Pen", PARAMETERS + "OGB/Pen/Pen"));
+        assertFalse(matches(PARAMETERS + "OGB/Pen/Pen", PARAMETERS + "OGB/Pen/Pe"));
+        assertFalse(matches(PARAMETERS + "OGB/Pen/Pen", PARAMETERS + "OGB/Pen/Penis"));
+    }
+
+    @Test
+    void anySequenceStaysWithinOneAddressPart()
+    {
+        assertTrue(matches(PARAMETERS + "OGB/*/PenOthers", PARAMETERS + "OGB/Pen/PenOthers"));
+        assertTrue(matches(PARAMETERS + "OGB/*/PenOthers", PARAMETERS + "OGB//PenOthers"));
+        assertFalse(matches(PARAMETERS + "OGB/*/PenOthers", PARAMETERS + "OGB/Pen/Extra/PenOthers"));
+        assertTrue(matches(PARAMETERS + "OGB/Orf/*", PARAMETERS + "OGB/Orf/Blowjob"));
+    }
+
+    @Test
+    void anyCharMatchesOneCharacterExceptSeparator()
+    {
+        assertTrue(matches("/a?c", "/abc"));
+        assertFalse(matches("/a?c", "/ac"));
+        assertFalse(matches("/a?c", "/a/c"));
+    }
+
+    @Test
+    void matchesCharacterClasses()
+    {
+        assertTrue(matches("/pen[0-9]", "/pen7"));
+        assertFalse(matches("/pen[0-9]", "/penx"));
+        assertTrue(matches("/pen[abc]", "/penb"));
+        assertTrue(matches("/pen[!0-9]", "/penx"));
+        assertFalse(matches("/pen[!0-9]", "/pen7"));
+    }
+
+    @Test
+    void matchesAlternatives()
+    {
+        assertTrue(matches(PARAMETERS + "OGB/{Pen,Orf}/*", PARAMETERS + "OGB/Orf/Anal"));
+        assertTrue(matches(PARAMETERS + "OGB/{Pen,Orf}/*", PARAMETERS + "OGB/Pen/PenSelf"));
+        assertFalse(matches(PARAMETERS + "OGB/{Pen,Orf}/*", PARAMETERS + "OGB/Touch/Zone"));
+        assertTrue(matches("/{a,ab}c", "/abc"));
+    }
+
+    @Test
+    void matchesAddressInsideLargerBuffer()
+    {
+        byte[] packet = ("xx" + PARAMETERS + "OGB/Pen/Pen" + "\0\0,f").getBytes(StandardCharsets.US_ASCII);
+        int start = 2;
+        int end = start + (PARAMETERS + "OGB/Pen/Pen").length();
+
+        assertTrue(new OscAddressPattern(PARAMETERS + "OGB/*/Pen").matches(ByteBuffer.wrap(packet), start, end));
+    }
+
+    @Test
+    void rejectsUnterminatedClassOrAlternatives()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new OscAddressPattern("/pen[0-9"));
+        assertThrows(IllegalArgumentException.class, () -> new OscAddressPattern("/{Pen,Orf"));
+    }
+
+    private static boolean matches(String pattern, String address)
+    {
+        byte[] bytes = address.getBytes(StandardCharsets.US_ASCII);
+        return new OscAddressPattern(pattern).matches(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HspPointSimplifierTest
+{
+    private final HspPointSimplifier simplifier = new HspPointSimplifier(256);
+
+    @Test
+    void removesPointsOnStraightLine()
+    {
+        HspPointBatch batch = batch(0, 0, 10, 10, 20, 20, 30, 30, 40, 40);
+
+        simplifier.simplify(batch, 1, 100);
+
+        assertPoints(batch, 0, 0, 40, 40);
+    }
+
+    @Test
+    void keepsPeaksAndValleysAboveTolerance()
+    {
+        HspPointBatch batch = batch(0, 0, 10, 50, 20, 100, 30, 50, 40, 0, 50, 2, 60, 0);
+
+        simplifier.simplify(batch, 5, 100);
+
+        assertPoints(batch, 0, 0, 20, 100, 40, 0, 60, 0);
+    }
+
+    @Test
+    void leavesBatchUntouchedWithoutToleranceWhenItFits()
+    {
+        HspPointBatch batch = batch(0, 0, 10, 10, 20, 20);
+
+        simplifier.simplify(batch, 0, 100);
+
+        assertPoints(batch, 0, 0, 10, 10, 20, 20);
+    }
+
+    @Test
+    void raisesToleranceUntilBatchFitsLimit()
+    {
+        HspPointBatch batch = new HspPointBatch(256);
+        for (int i = 0; i < 100; i++)
+        {
+            batch.add(i * 10, i % 2 == 0 ? 0 : 100);
+        }
+
+        simplifier.simplify(batch, 0, 20);
+
+        assertTrue(batch.size() <= 20, "size " + batch.size());
+        assertEquals(0, batch.t(0));
+        assertEquals(990, batch.t(batch.size() - 1));
+    }
+
+    private static HspPointBatch batch(int... timesAndPositions)
+    {
+        HspPointBatch batch = new HspPointBatch(256);
+        for (int i = 0; i < timesAndPositions.length; i += 2)
+        {
+            batch.add(timesAndPositions[i], timesAndPositions[i + 1]);
+        }
+        return batch;
+    }
+
+    private static void assertPoints(HspPointBatch batch, int... timesAndPositions)
+    {
+        assertEquals(timesAndPositions.length / 2, batch.size(), "size");
+        for (int i = 0; i < batch.size(); i++)
+        {
+            assertEquals(timesAndPositions[i * 2], batch.t(i), "t of point " + i);
+            assertEquals(timesAndPositions[i * 2 + 1], batch.x(i), "x of point " + i);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PointsOffsetControllerTest
+{
+    private static final int SEND_INTERVAL_MS = 100;
+    private static final int RTT_MS = 40;
+    private static final int UPDATE_EVERY_SAMPLES = 10;
+
+    private final PointsOffsetController controller = new PointsOffsetController(300, 50, 1000, 0.01f);
+
+    @Test
+    void clampsInitialOffsetToRange()
+    {
+        assertEquals(1000, new PointsOffsetController(5000, 50, 1000, 0.01f).offsetMs());
+        assertEquals(50, new PointsOffsetController(0, 50, 1000, 0.01f).offsetMs());
+    }
+
+    @Test
+    void keepsOffsetUntilEnoughSamples()
+    {
+        feed(UPDATE_EVERY_SAMPLES - 1, -100);
+
+        assertEquals(300, controller.offsetMs());
+    }
+
+    @Test
+    void growsOffsetWhenPointsAreSkipped()
+    {
+        feed(UPDATE_EVERY_SAMPLES, -20);
+
+        assertEquals(315, controller.offsetMs()); // Half of the distance to 10 ms safety margin
+    }
+
+    @Test
+    void limitsStepOfOneUpdate()
+    {
+        feed(UPDATE_EVERY_SAMPLES, -1000);
+
+        assertEquals(350, controller.offsetMs());
+    }
+
+    @Test
+    void shrinksOffsetWithLargeLeewayButNotBelowFloor()
+    {
+        feed(UPDATE_EVERY_SAMPLES, 500);
+        assertEquals(250, controller.offsetMs());
+
+        for (int i = 0; i < 20; i++)
+        {
+            feed(UPDATE_EVERY_SAMPLES, 500);
+        }
+        assertTrue(controller.offsetMs() >= SEND_INTERVAL_MS + RTT_MS / 2, "offset " + controller.offsetMs());
+    }
+
+    @Test
+    void growsOnStarvationRiskOnceBetweenUpdates()
+    {
+        controller.onStarvationRisk(5, 20);
+        assertEquals(308, controller.offsetMs());
+
+        controller.onStarvationRisk(5, 20);
+        assertEquals(308, controller.offsetMs());
+
+        feed(UPDATE_EVERY_SAMPLES, 10); // Leeway at safety margin, regular update keeps offset
+        controller.onStarvationRisk(5, 20);
+        assertEquals(316, controller.offsetMs());
+    }
+
+    private void feed(int samples, int leewayMs)
+    {
+        for (int i = 0; i < samples; i++)
+        {
+            controller.onBatchResult(leewayMs, RTT_MS, SEND_INTERVAL_MS);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.processor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestBudgetTest
+{
+    private static final long INTERVAL = 100;
+
+    private final RequestBudget budget = new RequestBudget(3);
+
+    @Test
+    void allowsFirstRequestRightAway()
+    {
+        assertEquals(Long.MIN_VALUE, budget.earliestRequestNanos(INTERVAL));
+    }
+
+    @Test
+    void allowsBurstThenOneRequestPerInterval()
+    {
+        budget.onRequest(0, INTERVAL);
+        assertEquals(-100, budget.earliestRequestNanos(INTERVAL));
+        budget.onRequest(0, INTERVAL);
+        assertEquals(0, budget.earliestRequestNanos(INTERVAL));
+        budget.onRequest(0, INTERVAL);
+        assertEquals(100, budget.earliestRequestNanos(INTERVAL)); // Burst used up
+
+        budget.onRequest(100, INTERVAL);
+        assertEquals(200, budget.earliestRequestNanos(INTERVAL));
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateBeyondBurst()
+    {
+        budget.onRequest(0, INTERVAL);
+        budget.onRequest(10_000, INTERVAL);
+
+        assertEquals(9_900, budget.earliestRequestNanos(INTERVAL));
+    }
+}